@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Writes the ages-and-years report, one line per person per year of life, such as "Tiger Woods: 1999 (age 24)",
+ * limited to a window of years. People are rendered in parallel, a chunk of people per task, and the rendered chunks
+ * are written in roster order, so the output is the same as rendering one person after the other. Chunks are rendered
+ * a wave at a time to bound the memory held by rendered text. Numbers are appended straight into the chunk buffer
+ * with no formatter or intermediate strings.
+ *
+ * @author Sabrina Nunes
+ */
+public class AgesReport
+{
+    private final int fromYear;
+    private final int toYear;
+    private final int currentYear;
+
+    private final static String LINE_SEPARATOR;
+    private final static int    CHUNK_PEOPLE; // people rendered by one task
+    private final static int    WAVE_CHUNKS; // chunks rendered before any of them are written
+
+    static
+    {
+        LINE_SEPARATOR = System.lineSeparator();
+        CHUNK_PEOPLE   = 1024;
+        WAVE_CHUNKS    = 4 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Constructs an AgesReport covering the specified years. A living person's life runs to the current year.
+     *
+     * @param fromYear    the first year to report, inclusive
+     * @param toYear      the last year to report, inclusive
+     * @param currentYear the year that is the last year of life of people still alive
+     */
+    public AgesReport(final int fromYear, final int toYear, final int currentYear)
+    {
+        this.fromYear    = fromYear;
+        this.toYear      = toYear;
+        this.currentYear = currentYear;
+    }
+
+    /**
+     * Writes the report for everyone on the specified roster, in row order.
+     *
+     * @param people the roster, typically a snapshot
+     * @param out    the sink to write to
+     *
+     * @throws IOException if the sink cannot be written
+     */
+    public void write(final Roster people, final Appendable out)
+            throws IOException
+    {
+        write(people::get, people.size(), out);
+    }
+
+    /**
+     * Writes the report for the specified people, in list order.
+     *
+     * @param people the people
+     * @param out    the sink to write to
+     *
+     * @throws IOException if the sink cannot be written
+     */
+    public void write(final List<? extends Person> people, final Appendable out)
+            throws IOException
+    {
+        write(people::get, people.size(), out);
+    }
+
+    /**
+     * Renders people a wave of chunks at a time, in parallel, and writes each wave's chunks in order.
+     *
+     * @param people the person at each position
+     * @param count  the number of people
+     * @param out    the sink to write to
+     *
+     * @throws IOException if the sink cannot be written
+     */
+    private void write(final IntFunction<? extends Person> people, final int count, final Appendable out)
+            throws IOException
+    {
+        int chunks;
+        chunks = (count + CHUNK_PEOPLE - 1) / CHUNK_PEOPLE;
+
+        for(int wave = 0; wave < chunks; wave += WAVE_CHUNKS)
+        {
+            StringBuilder[] rendered;
+
+            // An ordered stream's toArray keeps chunk order whichever thread rendered each chunk
+            rendered = IntStream.range(wave, Math.min(wave + WAVE_CHUNKS, chunks))
+                                .parallel()
+                                .mapToObj(chunk->render(people, chunk * CHUNK_PEOPLE,
+                                                        Math.min(count, (chunk + 1) * CHUNK_PEOPLE)))
+                                .toArray(StringBuilder[]::new);
+
+            for(StringBuilder text : rendered)
+            {
+                out.append(text);
+            }
+        }
+    }
+
+    /**
+     * Renders the lines of the people in the specified range of positions.
+     *
+     * @param people the person at each position
+     * @param start  the first position, inclusive
+     * @param end    the last position, exclusive
+     *
+     * @return the rendered lines
+     */
+    private StringBuilder render(final IntFunction<? extends Person> people, final int start, final int end)
+    {
+        StringBuilder text;
+        text = new StringBuilder();
+
+        for(int i = start; i < end; i++)
+        {
+            appendLines(people.apply(i), text);
+        }
+        return text;
+    }
+
+    /**
+     * Appends a line for each year of the person's life that falls in the window.
+     *
+     * @param p    the person
+     * @param text the buffer to append to
+     */
+    private void appendLines(final Person p, final StringBuilder text)
+    {
+        String name;
+        int    yearBorn;
+        int    lastYear;
+
+        name     = p.getName().getPrettyName();
+        yearBorn = p.getDateOfBirth().getYear();
+        lastYear = Math.min(toYear, p.isAlive() ? currentYear : p.getDateOfDeath().getYear());
+
+        for(int year = Math.max(yearBorn, fromYear); year <= lastYear; year++)
+        {
+            text.append(name).append(": ").append(year).append(" (age ").append(year - yearBorn).append(')')
+                .append(LINE_SEPARATOR);
+        }
+    }
+}
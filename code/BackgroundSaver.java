@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a save off the caller's thread and coalesces requests. Each request carries the work to save, such as a roster
+ * snapshot taken on the caller's thread, so the save never reads state that the caller may be changing. A request
+ * made while no save is running starts one with its work. A request made while a save is running cannot be served by
+ * it, since its work may miss recent changes, so one more save is queued to start when the running one ends; every
+ * request made in the meantime shares that queued save, which saves the work of the latest of them. At most one save
+ * runs at a time and at most one waits, however often saves are requested.
+ * <p>
+ * Each save reports through the future returned to the requests it serves: it completes normally when the save
+ * succeeds and exceptionally, with the {@link IOException} itself, when it fails. A failed save does not stop later
+ * ones.
+ *
+ * @param <T> the type of the work to save
+ *
+ * @author Sabrina Nunes
+ */
+public class BackgroundSaver<T>
+{
+    private final Save<? super T>         save;
+    private final Executor                executor;
+    private       CompletableFuture<Void> running; // null when no save is running
+    private       CompletableFuture<Void> queued; // null when no save is waiting
+    private       T                       queuedWork; // the work of the latest request served by the queued save
+
+    private final static ExecutorService SAVERS; // daemon threads, so a pending save never keeps the JVM alive
+
+    static
+    {
+        SAVERS = Executors.newCachedThreadPool(task->
+                                               {
+                                                   Thread thread;
+                                                   thread = new Thread(task, "roster-saver");
+
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               });
+    }
+
+    /**
+     * An interface representing the save to run, such as writing a roster snapshot to a file.
+     *
+     * @param <T> the type of the work to save
+     */
+    @FunctionalInterface
+    public interface Save<T>
+    {
+        /**
+         * Runs the save.
+         *
+         * @param work the work to save
+         *
+         * @throws IOException if the save fails
+         */
+        public void run(T work)
+                throws IOException;
+    }
+
+    /**
+     * Constructs a BackgroundSaver that runs saves on a shared pool of daemon threads.
+     *
+     * @param save the save to run
+     */
+    public BackgroundSaver(final Save<? super T> save)
+    {
+        this(save, SAVERS);
+    }
+
+    /**
+     * Constructs a BackgroundSaver that runs saves on the specified executor.
+     *
+     * @param save     the save to run
+     * @param executor the executor
+     */
+    public BackgroundSaver(final Save<? super T> save, final Executor executor)
+    {
+        this.save       = save;
+        this.executor   = executor;
+        this.running    = null;
+        this.queued     = null;
+        this.queuedWork = null;
+    }
+
+    /**
+     * Requests a save of the specified work, or of the work of a later request, that starts no earlier than this
+     * call.
+     *
+     * @param work the work to save, which must not change once requested
+     *
+     * @return a future that completes when that save ends
+     */
+    public synchronized CompletableFuture<Void> request(final T work)
+    {
+        if(running == null)
+        {
+            running = new CompletableFuture<>();
+            start(running, work);
+            return running;
+        }
+        if(queued == null)
+        {
+            queued = new CompletableFuture<>();
+        }
+        queuedWork = work; // the last request wins
+        return queued;
+    }
+
+    /**
+     * Returns whether a save is running or waiting.
+     *
+     * @return true if a save is running or waiting
+     */
+    public synchronized boolean isBusy()
+    {
+        return running != null;
+    }
+
+    /**
+     * Runs a save on the executor, completing the specified future with its outcome.
+     *
+     * @param outcome the future of the requests this save serves
+     * @param work    the work to save
+     */
+    private void start(final CompletableFuture<Void> outcome, final T work)
+    {
+        try
+        {
+            executor.execute(()->
+                             {
+                                 Throwable failure;
+                                 failure = null;
+
+                                 try
+                                 {
+                                     save.run(work);
+                                 }
+                                 catch(final IOException | RuntimeException | Error e)
+                                 {
+                                     failure = e;
+                                 }
+
+                                 // Hand over first, so a caller woken by the future never finds this save running
+                                 finished();
+                                 if(failure == null)
+                                 {
+                                     outcome.complete(null);
+                                 }
+                                 else
+                                 {
+                                     outcome.completeExceptionally(failure);
+                                 }
+                             });
+        }
+        catch(final RuntimeException e)
+        {
+            // e.g. a rejected task: fail this save and any waiting one rather than leave them pending forever
+            outcome.completeExceptionally(e);
+            finished();
+        }
+    }
+
+    /** Starts the waiting save, if any, now that the running one has ended. */
+    private synchronized void finished()
+    {
+        T work;
+
+        running    = queued;
+        work       = queuedWork;
+        queued     = null;
+        queuedWork = null;
+
+        if(running != null)
+        {
+            start(running, work);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A roster that is safe for concurrent registration without a global lock. Each append claims a row from an atomic
+ * cursor and stores the person in a fixed-size chunk; chunks are never moved or copied once created. Readers see
+ * every row below the cursor. A row whose writer has claimed it but not stored it yet is waited for briefly, so
+ * iteration always sees a gap-free prefix of the roster. If storing fails after the row is claimed, e.g. because
+ * there is no memory for a new chunk, the row is recorded as abandoned: it still counts towards the size, but reading
+ * it throws rather than waiting forever.
+ *
+ * @author Sabrina Nunes
+ */
+public class ChunkedRoster
+        implements Roster
+{
+    private final    AtomicInteger                   cursor;
+    private volatile AtomicReferenceArray<Person>[] chunks;
+    private final    Object                          growLock;
+    private final    Set<Integer>                    abandoned; // claimed rows whose person was never stored
+
+    private final static int    CHUNK_BITS;
+    private final static int    CHUNK_SIZE;
+    private final static int    CHUNK_MASK;
+    private final static String ABANDONED_ROW;
+
+    static
+    {
+        CHUNK_BITS    = 12;
+        CHUNK_SIZE    = 1 << CHUNK_BITS;
+        CHUNK_MASK    = CHUNK_SIZE - 1;
+        ABANDONED_ROW = "the registration of the person at this row failed";
+    }
+
+    /** Constructs an empty ChunkedRoster. */
+    @SuppressWarnings("unchecked")
+    public ChunkedRoster()
+    {
+        cursor    = new AtomicInteger();
+        chunks    = (AtomicReferenceArray<Person>[]) new AtomicReferenceArray<?>[0];
+        growLock  = new Object();
+        abandoned = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Appends a person. Safe to call from many threads at once.
+     *
+     * @param p the person to add
+     *
+     * @return the row of the person
+     * @throws NullPointerException if the person is null
+     */
+    @Override
+    public int add(final Person p)
+    {
+        int row;
+
+        Objects.requireNonNull(p);
+        row = cursor.getAndIncrement();
+
+        try
+        {
+            chunkFor(row).set(row & CHUNK_MASK, p);
+        }
+        catch(final RuntimeException | Error e)
+        {
+            abandon(row, row + 1);
+            throw e;
+        }
+        return row;
+    }
+
+    /**
+     * Appends a batch of people. The rows for the whole batch are claimed with a single atomic update, so the batch
+     * stays contiguous even while other threads are registering.
+     *
+     * @param batch the people to add
+     *
+     * @return the row of the first person in the batch
+     * @throws NullPointerException if any person in the batch is null
+     */
+    @Override
+    public int addAll(final List<? extends Person> batch)
+    {
+        int first;
+        int stored;
+
+        batch.forEach(Objects::requireNonNull);
+        first  = cursor.getAndAdd(batch.size());
+        stored = 0;
+
+        try
+        {
+            for(; stored < batch.size(); stored++)
+            {
+                chunkFor(first + stored).set((first + stored) & CHUNK_MASK, batch.get(stored));
+            }
+        }
+        catch(final RuntimeException | Error e)
+        {
+            abandon(first + stored, first + batch.size());
+            throw e;
+        }
+        return first;
+    }
+
+    /**
+     * Returns the person at the specified row.
+     *
+     * @param row the row
+     *
+     * @return the person
+     */
+    @Override
+    public Person get(final int row)
+    {
+        if(row < 0 || row >= cursor.get())
+        {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return await(row);
+    }
+
+    /**
+     * Returns the number of rows claimed so far.
+     *
+     * @return the size
+     */
+    @Override
+    public int size()
+    {
+        return cursor.get();
+    }
+
+    /**
+     * Returns an iterator over the rows claimed when it was created, in row order. People registered while iterating
+     * are not included.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Person> iterator()
+    {
+        final int end;
+        end = cursor.get();
+
+        return new Iterator<>()
+        {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < end;
+            }
+
+            @Override
+            public Person next()
+            {
+                if(next >= end)
+                {
+                    throw new NoSuchElementException();
+                }
+                return await(next++);
+            }
+        };
+    }
+
+    /**
+     * Returns the person at a claimed row, waiting for its writer to store it if necessary.
+     *
+     * @param row a row below the cursor
+     *
+     * @return the person
+     * @throws IllegalStateException if the row was abandoned because storing its person failed
+     */
+    private Person await(final int row)
+    {
+        AtomicReferenceArray<Person> chunk;
+        Person                       p;
+
+        chunk = chunkFor(row);
+        p     = chunk.get(row & CHUNK_MASK);
+
+        while(p == null)
+        {
+            // A writer records its row as abandoned before its add returns, so this check ends the wait
+            if(abandoned.contains(row))
+            {
+                throw new IllegalStateException(ABANDONED_ROW);
+            }
+            Thread.onSpinWait();
+            p = chunk.get(row & CHUNK_MASK);
+        }
+        return p;
+    }
+
+    /**
+     * Records claimed rows whose people will never be stored, so readers stop waiting for them.
+     *
+     * @param from the first row, inclusive
+     * @param to   the last row, exclusive
+     */
+    private void abandon(final int from, final int to)
+    {
+        for(int row = from; row < to; row++)
+        {
+            abandoned.add(row);
+        }
+    }
+
+    /**
+     * Returns the chunk that holds the specified row, creating it and any chunks before it if necessary.
+     *
+     * @param row the row
+     *
+     * @return the chunk
+     */
+    @SuppressWarnings("unchecked")
+    private AtomicReferenceArray<Person> chunkFor(final int row)
+    {
+        AtomicReferenceArray<Person>[] current;
+        int                            index;
+
+        index   = row >>> CHUNK_BITS;
+        current = chunks;
+
+        if(index < current.length && current[index] != null)
+        {
+            return current[index];
+        }
+
+        // Slow path, once per chunk: a racy read above may miss a chunk another thread just made, so check again
+        synchronized(growLock)
+        {
+            current = chunks;
+            if(index >= current.length)
+            {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+                chunks  = current;
+            }
+            if(current[index] == null)
+            {
+                current[index] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+        }
+        return current[index];
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A roster that stores people column by column in parallel primitive arrays instead of as Person objects: birth and
+ * death epoch days, record type, name ids, and the student number or specialty payload (see {@link PersonRecord}).
+ * Scans that only need a few fields, such as counting living people born before a day, run as tight loops over
+ * int arrays. {@link #get(int)} and iteration build Person views on demand.
+ * <p>
+ * Deaths are stored in the death column with their change sequence number, in a change column, whether they are
+ * recorded with {@link #recordDeath(int, int)} or by {@link Person#die(Date)} on a view or on the person registered
+ * here (see {@link Person}).
+ * <p>
+ * Snapshots are copies of the columns, so they can be handed to another thread, such as a background save, while the
+ * roster keeps growing. A death recorded through a snapshot is recorded on this roster.
+ *
+ * @author Sabrina Nunes
+ */
+public class ColumnarRoster
+        implements Roster
+{
+    private int[]  born;
+    private int[]  died;
+    private byte[] types;
+    private int[]  firstIds;
+    private int[]  lastIds;
+    private long[] payloads;
+    private long[] changes;
+    private int    size;
+
+    private final ColumnarRoster owner; // deaths are recorded here: this roster, or the one a snapshot was copied from
+
+    private final static int DEFAULT_CAPACITY;
+
+    static
+    {
+        DEFAULT_CAPACITY = 16;
+    }
+
+    /** Constructs an empty ColumnarRoster. */
+    public ColumnarRoster()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty ColumnarRoster with room for the specified number of people.
+     *
+     * @param capacity the initial capacity
+     */
+    public ColumnarRoster(final int capacity)
+    {
+        int initial;
+        initial = Math.max(capacity, 1);
+
+        born     = new int[initial];
+        died     = new int[initial];
+        types    = new byte[initial];
+        firstIds = new int[initial];
+        lastIds  = new int[initial];
+        payloads = new long[initial];
+        changes  = new long[initial];
+        size     = 0;
+        owner    = this;
+    }
+
+    /**
+     * Constructs a ColumnarRoster holding a copy of the columns of the specified roster, for a snapshot.
+     *
+     * @param source the roster to copy
+     */
+    private ColumnarRoster(final ColumnarRoster source)
+    {
+        born     = Arrays.copyOf(source.born, source.size);
+        died     = Arrays.copyOf(source.died, source.size);
+        types    = Arrays.copyOf(source.types, source.size);
+        firstIds = Arrays.copyOf(source.firstIds, source.size);
+        lastIds  = Arrays.copyOf(source.lastIds, source.size);
+        payloads = Arrays.copyOf(source.payloads, source.size);
+        changes  = Arrays.copyOf(source.changes, source.size);
+        size     = source.size;
+        owner    = source.owner;
+    }
+
+    /**
+     * Appends a person.
+     *
+     * @param p the person to add
+     *
+     * @return the row of the person
+     */
+    @Override
+    public int add(final Person p)
+    {
+        if(size == born.length)
+        {
+            grow(size * 2);
+        }
+        born[size]     = p.getDateOfBirth().getEpochDay();
+        died[size]     = PersonRecord.deathOf(p);
+        types[size]    = PersonRecord.typeOf(p);
+        firstIds[size] = p.getName().getFirstId();
+        lastIds[size]  = p.getName().getLastId();
+        payloads[size] = PersonRecord.payloadOf(p);
+        changes[size]  = p.getChangeSequence();
+        p.attach(this, size, changes[size]);
+
+        return size++;
+    }
+
+    /**
+     * Appends a batch of people, growing the columns at most once.
+     *
+     * @param batch the people to add
+     *
+     * @return the row of the first person in the batch
+     */
+    @Override
+    public int addAll(final List<? extends Person> batch)
+    {
+        int first;
+        first = size;
+
+        if(size + batch.size() > born.length)
+        {
+            grow(Math.max(size + batch.size(), size * 2));
+        }
+        for(Person p : batch)
+        {
+            add(p);
+        }
+        return first;
+    }
+
+    /**
+     * Returns a Person view of the specified row.
+     *
+     * @param row the row
+     *
+     * @return a new Person, Student, or Teacher with the stored fields, attached to the row
+     */
+    @Override
+    public Person get(final int row)
+    {
+        Person p;
+
+        if(row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException(row);
+        }
+        p = PersonRecord.toPerson(types[row], born[row], died[row], firstIds[row], lastIds[row], payloads[row]);
+        p.attach(owner, row, changes[row]);
+
+        return p;
+    }
+
+    /**
+     * Stores the death of the person at the specified row in the death column. A copy made for a snapshot records it
+     * on the roster it was copied from instead.
+     *
+     * @param row      the row
+     * @param epochDay the day of death, as a number of days since 1970-01-01
+     */
+    @Override
+    public void recordDeath(final int row, final int epochDay)
+    {
+        if(row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException(row);
+        }
+        if(owner != this)
+        {
+            owner.recordDeath(row, epochDay);
+            return;
+        }
+        died[row]    = Date.ofEpochDay(epochDay).getEpochDay(); // validates the day
+        changes[row] = Person.nextChangeSequence();
+    }
+
+    /**
+     * Returns the number of people.
+     *
+     * @return the size
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns an immutable copy of the people on the roster now. Unlike the constant-time view of a
+     * {@link ChunkedRoster}, this copies the columns, in time linear in the size: they cannot be read safely on one
+     * thread while they grow or change on another.
+     *
+     * @return the snapshot
+     */
+    @Override
+    public Roster snapshot()
+    {
+        return new RosterSnapshot(new ColumnarRoster(this), size);
+    }
+
+    /**
+     * Returns the number of living people born before the specified day, scanning only the two date columns.
+     *
+     * @param epochDay the day, as a number of days since 1970-01-01
+     *
+     * @return the count
+     */
+    @Override
+    public int countAliveBornBefore(final int epochDay)
+    {
+        int count;
+        count = 0;
+
+        for(int row = 0; row < size; row++)
+        {
+            if(died[row] == PersonRecord.ALIVE && born[row] < epochDay)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fills the specified array with ages in the specified year, scanning only the two date columns. The year of
+     * birth is only worked out for people alive in that year.
+     *
+     * @param year the year
+     * @param ages the array to fill, no longer than size()
+     */
+    @Override
+    public void agesInYear(final int year, final int[] ages)
+    {
+        int firstDay;
+        int lastDay;
+
+        firstDay = Date.of(1, 1, year).getEpochDay();
+        lastDay  = Date.of(31, 12, year).getEpochDay();
+
+        for(int row = 0; row < ages.length; row++)
+        {
+            if(born[row] <= lastDay && (died[row] == PersonRecord.ALIVE || died[row] >= firstDay))
+            {
+                ages[row] = year - Date.ofEpochDay(born[row]).getYear();
+            }
+            else
+            {
+                ages[row] = Person.NO_AGE;
+            }
+        }
+    }
+
+    /**
+     * Returns an iterator that builds a Person view of each row in order.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Person> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < size;
+            }
+
+            @Override
+            public Person next()
+            {
+                if(next >= size)
+                {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Grows every column to the specified capacity.
+     *
+     * @param capacity the new capacity
+     */
+    private void grow(final int capacity)
+    {
+        born     = Arrays.copyOf(born, capacity);
+        died     = Arrays.copyOf(died, capacity);
+        types    = Arrays.copyOf(types, capacity);
+        firstIds = Arrays.copyOf(firstIds, capacity);
+        lastIds  = Arrays.copyOf(lastIds, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        changes  = Arrays.copyOf(changes, capacity);
+    }
+}
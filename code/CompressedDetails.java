@@ -0,0 +1,139 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes and reads GZIP-compressed details files. Records are compressed as they are encoded, in the same pass, so the
+ * uncompressed text never reaches the disk or sits whole in memory. Reading is streamed too: lines are inflated and
+ * decoded as they are consumed. The details format repeats "was born on", weekday names and date prefixes on every
+ * line, so it compresses well.
+ *
+ * @author Sabrina Nunes
+ */
+public class CompressedDetails
+{
+    private final static int BUFFER_BYTES;
+
+    static
+    {
+        BUFFER_BYTES = 1 << 16;
+    }
+
+    /** CompressedDetails only has static helpers. */
+    private CompressedDetails()
+    {
+    }
+
+    /**
+     * Writes the specified people to the file at the specified path as GZIP-compressed UTF-8 text at the default
+     * compression level, replacing its contents.
+     *
+     * @param people     the people, typically a roster snapshot
+     * @param serializer the serializer, which decides the record format
+     * @param path       the file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(final Iterable<? extends Person> people, final RosterSerializer serializer,
+                             final Path path)
+            throws IOException
+    {
+        write(people, serializer, path, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Writes the specified people to the file at the specified path as GZIP-compressed UTF-8 text, replacing its
+     * contents. {@link Deflater#BEST_SPEED} compresses several times faster than the default level, for a somewhat
+     * larger file.
+     *
+     * @param people     the people, typically a roster snapshot
+     * @param serializer the serializer, which decides the record format
+     * @param path       the file
+     * @param level      the compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION},
+     *                   or {@link Deflater#DEFAULT_COMPRESSION}
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(final Iterable<? extends Person> people, final RosterSerializer serializer,
+                             final Path path, final int level)
+            throws IOException
+    {
+        try(OutputStream out = new LeveledGZIPOutputStream(Files.newOutputStream(path), BUFFER_BYTES, level))
+        {
+            serializer.write(people, Channels.newChannel(out));
+        }
+    }
+
+    /**
+     * Opens a GZIP-compressed UTF-8 file for reading line by line.
+     *
+     * @param path the file
+     *
+     * @return a reader of the uncompressed text, to be closed by the caller
+     * @throws IOException if the file cannot be opened or does not start with a GZIP header
+     */
+    public static BufferedReader newReader(final Path path)
+            throws IOException
+    {
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(path), BUFFER_BYTES),
+                                                        StandardCharsets.UTF_8), BUFFER_BYTES);
+    }
+
+    /**
+     * Returns the lines of a GZIP-compressed UTF-8 file, read as the stream is consumed.
+     *
+     * @param path the file
+     *
+     * @return the lines, without line terminators; close the stream to close the file
+     * @throws IOException if the file cannot be opened or does not start with a GZIP header
+     */
+    public static Stream<String> lines(final Path path)
+            throws IOException
+    {
+        BufferedReader reader;
+        reader = newReader(path);
+
+        return reader.lines().onClose(()->
+                                      {
+                                          try
+                                          {
+                                              reader.close();
+                                          }
+                                          catch(final IOException e)
+                                          {
+                                              throw new UncheckedIOException(e);
+                                          }
+                                      });
+    }
+
+    /** A GZIPOutputStream that compresses at a chosen level rather than the default one. */
+    private static class LeveledGZIPOutputStream
+            extends GZIPOutputStream
+    {
+        /**
+         * Constructs a LeveledGZIPOutputStream.
+         *
+         * @param out   the stream to write the compressed data to
+         * @param size  the output buffer size
+         * @param level the compression level
+         *
+         * @throws IOException if the GZIP header cannot be written
+         */
+        LeveledGZIPOutputStream(final OutputStream out, final int size, final int level)
+                throws IOException
+        {
+            super(out, size);
+            def.setLevel(level);
+        }
+    }
+}
@@ -1,117 +1,112 @@
+import java.nio.ByteBuffer;
+
 /**
  * Represents a date with day, month, and year. Implements Orderable and Comparable interfaces. Provides methods to
  * manipulate and compare dates. This class ensures that the date is valid upon creation.
+ * <p>
+ * A date is stored as a single epoch-day count (days since 1970-01-01 in the proleptic Gregorian calendar), so day
+ * arithmetic and comparisons are constant time. The day, month, and year are derived once on construction and cached.
+ * Dates are immutable.
  *
  * @author Sabrina Nunes
  */
 public class Date
         implements Orderable, Comparable<Date>
 {
-    private int day;
-    private int month;
-    private int year;
-
-    private final static int    INVALID_YEAR_VALUE;
-    private final static int    MIN_MONTH;
-    private final static int    MAX_MONTH;
-    private final static int    MIN_DAY;
-    private final static int    DAY_INCREMENT;
-    private final static int    DAYS_PER_WEEK;
-    private final static int    MONTHS_PER_YEAR;
-    private final static int    YEARS_PER_CENTURY;
-    private final static int    LEAP_YEAR_DIVISOR_4; // A year is a leap year if it is divisible by 4, except when it is divisible by 100 (unless it is also divisible by 400).
-    private final static int    LEAP_YEAR_DIVISOR_400; // A year is a leap year if it is divisible by 400.
-    private final static String INVALID_DAY;
-    private final static String INVALID_MONTH;
-    private final static String INVALID_YEAR;
-    private final static int    LEAP_YEAR_SPECIAL_OFFSET;
-    private final static int    CENTURY_1600_OFFSET;
-    private final static int    CENTURY_1700_OFFSET;
-    private final static int    CENTURY_1800_OFFSET;
-    private final static int    CENTURY_2000_OFFSET;
-    private final static int    CENTURY_2100_OFFSET;
-    private final static int    DAYS_IN_MONTH_THIRTY_ONE;
-    private final static int    DAYS_IN_MONTH_THIRTY;
-    private final static int    DAYS_IN_FEBRUARY;
-    private final static int    DAYS_IN_FEBRUARY_LEAP_YEAR;
-    private final static int    JANUARY;
-    private final static int    FEBRUARY;
-    private final static String SATURDAY;
-    private final static String SUNDAY;
-    private final static String MONDAY;
-    private final static String TUESDAY;
-    private final static String WEDNESDAY;
-    private final static String THURSDAY;
-    private final static String FRIDAY;
-    private final static int    SPECIALCODE_1;
-    private final static int    SPECIALCODE_4;
-    private final static int    SPECIALCODE_0;
-    private final static int    SPECIALCODE_2;
-    private final static int    SPECIALCODE_5;
-    private final static int    SPECIALCODE_3;
-    private final static int    SPECIALCODE_6;
-    private final static int    CENTURY_1600;
-    private final static int    CENTURY_1700;
-    private final static int    CENTURY_1800;
-    private final static int    CENTURY_1900;
-    private final static int    CENTURY_2000;
-    private final static int    CENTURY_2100;
+    private final int epochDay;
+    private final int day;
+    private final int month;
+    private final int year;
+
+    private final static int       INVALID_YEAR_VALUE;
+    private final static int       MIN_YEAR;
+    private final static int       MAX_YEAR;
+    private final static int       MIN_EPOCH_DAY;
+    private final static int       MAX_EPOCH_DAY;
+    private final static int       DAYS_PER_ERA; // days in a 400-year Gregorian cycle
+    private final static int       YEARS_PER_ERA;
+    private final static int       DAYS_PER_YEAR;
+    private final static int       DAYS_FROM_ERA_START_TO_EPOCH; // days from 0000-03-01 to 1970-01-01
+    private final static int       DAYS_PER_4_YEARS_MINUS_1; // 4 * 365: the day before each leap day of an era
+    private final static int       DAYS_PER_CENTURY_MINUS_1; // 100 * 365 + 24: the day before each skipped leap day
+    private final static int       DAYS_PER_ERA_MINUS_1; // the last day of an era, which follows the 400-year leap day
+    private final static int       MONTH_CYCLE_DAYS; // days in March to July; August to December repeat the pattern
+    private final static int       MONTH_CYCLE_MONTHS;
+    private final static int       MONTH_CYCLE_OFFSET; // lines the month starts up with the 31, 30, 31, 30, 31 pattern
+    private final static int       MONTHS_MARCH_TO_DECEMBER; // shifted months below this fall in the same year
+    private final static int       MARCH;
+    private final static int       MIN_MONTH;
+    private final static int       MAX_MONTH;
+    private final static int       MIN_DAY;
+    private final static int       DAY_INCREMENT;
+    private final static int       MONTHS_PER_YEAR;
+    private final static int       YEARS_PER_CENTURY;
+    private final static int       LEAP_YEAR_DIVISOR_4; // A year is a leap year if it is divisible by 4, except when it is divisible by 100 (unless it is also divisible by 400).
+    private final static int       LEAP_YEAR_DIVISOR_400; // A year is a leap year if it is divisible by 400.
+    private final static String    INVALID_DAY;
+    private final static String    INVALID_MONTH;
+    private final static String    INVALID_YEAR;
+    private final static int       DAYS_IN_MONTH_THIRTY_ONE;
+    private final static int       DAYS_IN_MONTH_THIRTY;
+    private final static int       DAYS_IN_FEBRUARY;
+    private final static int       DAYS_IN_FEBRUARY_LEAP_YEAR;
+    private final static int       FEBRUARY;
+    private final static String    INVALID_FORMAT;
+    private final static int       MIN_YEAR_WIDTH; // the year is zero-padded to four characters, sign included
+    private final static int       TWO_DIGIT_WIDTH;
+    private final static int       DECIMAL_BASE;
+    private final static char      SEPARATOR;
+    private final static char      MINUS_SIGN;
+    private final static char      ZERO;
+    private final static char      NINE;
+    private final static int       CACHE_CAPACITY; // covers about 179 consecutive years without collisions
+    private final static DateCache CACHE;
 
     static
     {
-        INVALID_YEAR_VALUE         = 0;
-        MIN_MONTH                  = 1;
-        MAX_MONTH                  = 12;
-        MIN_DAY                    = 1;
-        DAY_INCREMENT              = 1;
-        YEARS_PER_CENTURY          = 100;
-        DAYS_PER_WEEK              = 7;
-        MONTHS_PER_YEAR            = 12;
-        LEAP_YEAR_DIVISOR_4        = 4;
-        LEAP_YEAR_DIVISOR_400      = 400;
-        INVALID_DAY                = "invalid day of the month";
-        INVALID_MONTH              = "invalid month";
-        INVALID_YEAR               = "invalid year";
-        LEAP_YEAR_SPECIAL_OFFSET   = 6;
-        CENTURY_1600_OFFSET        = 6;
-        CENTURY_1700_OFFSET        = 4;
-        CENTURY_1800_OFFSET        = 2;
-        CENTURY_2000_OFFSET        = 6;
-        CENTURY_2100_OFFSET        = 4;
-        DAYS_IN_MONTH_THIRTY_ONE   = 31;
-        DAYS_IN_MONTH_THIRTY       = 30;
-        DAYS_IN_FEBRUARY           = 28;
-        DAYS_IN_FEBRUARY_LEAP_YEAR = 29;
-        JANUARY                    = 1;
-        FEBRUARY                   = 2;
-        SATURDAY                   = "Saturday";
-        SUNDAY                     = "Sunday";
-        MONDAY                     = "Monday";
-        TUESDAY                    = "Tuesday";
-        WEDNESDAY                  = "Wednesday";
-        THURSDAY                   = "Thursday";
-        FRIDAY                     = "Friday";
-        SPECIALCODE_1              = 1;
-        SPECIALCODE_4              = 4;
-        SPECIALCODE_0              = 0;
-        SPECIALCODE_2              = 2;
-        SPECIALCODE_5              = 5;
-        SPECIALCODE_3              = 3;
-        SPECIALCODE_6              = 6;
-        CENTURY_1600               = 1600;
-        CENTURY_1700               = 1700;
-        CENTURY_1800               = 1800;
-        CENTURY_1900               = 1900;
-        CENTURY_2000               = 2000;
-        CENTURY_2100               = 2100;
-
-    }
-
-    //instances
-    {
-        day   = MIN_DAY;
-        month = MIN_MONTH;
-        year  = INVALID_YEAR_VALUE;
+        INVALID_YEAR_VALUE           = 0;
+        MIN_YEAR                     = -999_999;
+        MAX_YEAR                     = 999_999;
+        DAYS_PER_ERA                 = 146_097;
+        YEARS_PER_ERA                = 400;
+        DAYS_PER_YEAR                = 365;
+        DAYS_FROM_ERA_START_TO_EPOCH = 719_468;
+        DAYS_PER_4_YEARS_MINUS_1     = 1_460;
+        DAYS_PER_CENTURY_MINUS_1     = 36_524;
+        DAYS_PER_ERA_MINUS_1         = DAYS_PER_ERA - 1;
+        MONTH_CYCLE_DAYS             = 153;
+        MONTH_CYCLE_MONTHS           = 5;
+        MONTH_CYCLE_OFFSET           = 2;
+        MONTHS_MARCH_TO_DECEMBER     = 10;
+        MARCH                        = 3;
+        MIN_MONTH                    = 1;
+        MAX_MONTH                    = 12;
+        MIN_DAY                      = 1;
+        DAY_INCREMENT                = 1;
+        YEARS_PER_CENTURY            = 100;
+        MONTHS_PER_YEAR              = 12;
+        LEAP_YEAR_DIVISOR_4          = 4;
+        LEAP_YEAR_DIVISOR_400        = 400;
+        INVALID_DAY                  = "invalid day of the month";
+        INVALID_MONTH                = "invalid month";
+        INVALID_YEAR                 = "invalid year";
+        DAYS_IN_MONTH_THIRTY_ONE     = 31;
+        DAYS_IN_MONTH_THIRTY         = 30;
+        DAYS_IN_FEBRUARY             = 28;
+        DAYS_IN_FEBRUARY_LEAP_YEAR   = 29;
+        FEBRUARY                     = 2;
+        MIN_EPOCH_DAY                = toEpochDay(MIN_DAY, MIN_MONTH, MIN_YEAR);
+        MAX_EPOCH_DAY                = toEpochDay(DAYS_IN_MONTH_THIRTY_ONE, MAX_MONTH, MAX_YEAR);
+        INVALID_FORMAT               = "invalid date format";
+        MIN_YEAR_WIDTH               = 4;
+        TWO_DIGIT_WIDTH              = 2;
+        DECIMAL_BASE                 = 10;
+        SEPARATOR                    = '-';
+        MINUS_SIGN                   = '-';
+        ZERO                         = '0';
+        NINE                         = '9';
+        CACHE_CAPACITY               = 1 << 16;
+        CACHE                        = new DateCache(CACHE_CAPACITY, Date::new);
     }
 
     /**
@@ -125,21 +120,113 @@ public class Date
      */
     public Date(final int day, final int month, final int year)
     {
-        if(year == INVALID_YEAR_VALUE)
+        validateDate(day, month, year);
+
+        this.epochDay = toEpochDay(day, month, year);
+        this.day      = day;
+        this.month    = month;
+        this.year     = year;
+    }
+
+    /**
+     * Constructs a Date from a number of days since 1970-01-01.
+     *
+     * @param epochDay the number of days since 1970-01-01
+     *
+     * @throws IllegalArgumentException if the epoch day falls outside the supported years or in year 0
+     */
+    private Date(final int epochDay)
+    {
+        int shiftedDay;
+        int era;
+        int dayOfEra;
+        int yearOfEra;
+        int dayOfYear;
+        int shiftedMonth;
+        int shiftedYear;
+
+        if(epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY)
         {
             throw new IllegalArgumentException(INVALID_YEAR);
         }
-        if(month < MIN_MONTH || month > MAX_MONTH)
+
+        // Inverse of toEpochDay: years are counted from March so that the leap day is the last day of the year
+        shiftedDay   = epochDay + DAYS_FROM_ERA_START_TO_EPOCH;
+        era          = Math.floorDiv(shiftedDay, DAYS_PER_ERA);
+        dayOfEra     = shiftedDay - era * DAYS_PER_ERA;
+        yearOfEra    = (dayOfEra - dayOfEra / DAYS_PER_4_YEARS_MINUS_1 + dayOfEra / DAYS_PER_CENTURY_MINUS_1 -
+                        dayOfEra / DAYS_PER_ERA_MINUS_1) / DAYS_PER_YEAR;
+        shiftedYear  = yearOfEra + era * YEARS_PER_ERA;
+        dayOfYear    = dayOfEra - (DAYS_PER_YEAR * yearOfEra + yearOfEra / LEAP_YEAR_DIVISOR_4 - yearOfEra / YEARS_PER_CENTURY);
+        shiftedMonth = (MONTH_CYCLE_MONTHS * dayOfYear + MONTH_CYCLE_OFFSET) / MONTH_CYCLE_DAYS;
+
+        this.epochDay = epochDay;
+        this.day      = dayOfYear - (MONTH_CYCLE_DAYS * shiftedMonth + MONTH_CYCLE_OFFSET) / MONTH_CYCLE_MONTHS +
+                        MIN_DAY;
+        this.month    = shiftedMonth < MONTHS_MARCH_TO_DECEMBER ? shiftedMonth + MARCH :
+                        shiftedMonth + MARCH - MONTHS_PER_YEAR;
+        this.year     = this.month <= FEBRUARY ? shiftedYear + 1 : shiftedYear;
+
+        if(this.year == INVALID_YEAR_VALUE)
         {
-            throw new IllegalArgumentException(INVALID_MONTH);
+            throw new IllegalArgumentException(INVALID_YEAR);
         }
-        if(day < MIN_DAY || day > getNumberOfDaysPerMonth(month, year))
+    }
+
+    /**
+     * Returns the Date that is the specified number of days after 1970-01-01.
+     *
+     * @param epochDay the number of days since 1970-01-01 (negative for earlier dates)
+     *
+     * @return the date
+     * @throws IllegalArgumentException if the epoch day falls outside the supported years or in year 0
+     */
+    public static Date ofEpochDay(final int epochDay)
+    {
+        if(epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY)
         {
-            throw new IllegalArgumentException(INVALID_DAY);
+            throw new IllegalArgumentException(INVALID_YEAR);
         }
-        this.day   = day;
-        this.month = month;
-        this.year  = year;
+        return CACHE.get(epochDay);
+    }
+
+    /**
+     * Returns the shared Date for the specified day, month, and year. Equal dates obtained this way are usually the
+     * same instance, which saves memory when many people share a birthdate.
+     *
+     * @param day   the day of the month
+     * @param month the month of the year
+     * @param year  the year
+     *
+     * @return the date
+     * @throws IllegalArgumentException if the date is invalid
+     */
+    public static Date of(final int day, final int month, final int year)
+    {
+        validateDate(day, month, year);
+
+        return CACHE.get(toEpochDay(day, month, year));
+    }
+
+    /**
+     * Returns the shared Date equal to this date, caching this date if no equal date is cached.
+     *
+     * @return the shared date
+     */
+    public Date intern()
+    {
+        return CACHE.intern(this);
+    }
+
+    /**
+     * Returns the cache behind {@link #of(int, int, int)}, {@link #intern()} and the day arithmetic methods, e.g. to
+     * read its hit and miss counts.
+     *
+     * @return the date cache
+     */
+    public static DateCache getCache()
+    {
+        return CACHE;
     }
 
     /**
@@ -152,6 +239,36 @@ public class Date
         return year;
     }
 
+    /**
+     * Returns the month of this date.
+     *
+     * @return the month, from 1 to 12
+     */
+    public int getMonth()
+    {
+        return month;
+    }
+
+    /**
+     * Returns the day of the month of this date.
+     *
+     * @return the day of the month
+     */
+    public int getDay()
+    {
+        return day;
+    }
+
+    /**
+     * Returns the number of days between 1970-01-01 and this date.
+     *
+     * @return the epoch day (negative for dates before 1970)
+     */
+    public int getEpochDay()
+    {
+        return epochDay;
+    }
+
     /**
      * Returns the date in the format yyyy-MM-dd.
      *
@@ -159,7 +276,132 @@ public class Date
      */
     public String getYyyyMmDd()
     {
-        return String.format("%04d-%02d-%02d", year, month, day);
+        char[] chars;
+        chars = new char[getYyyyMmDdLength()];
+
+        writeYyyyMmDd(chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Returns the number of characters in the yyyy-MM-dd form of this date. This is 10 for years 1 to 9999.
+     *
+     * @return the formatted length
+     */
+    public int getYyyyMmDdLength()
+    {
+        return getYyyyMmDdLength(getYearWidth());
+    }
+
+    /**
+     * Appends the date in the format yyyy-MM-dd to the specified builder without creating intermediate strings.
+     *
+     * @param sb the builder to append to
+     *
+     * @return the builder
+     */
+    public StringBuilder appendYyyyMmDd(final StringBuilder sb)
+    {
+        int yearWidth;
+        int length;
+
+        yearWidth = getYearWidth();
+        length    = getYyyyMmDdLength(yearWidth);
+
+        for(int i = 0; i < length; i++)
+        {
+            sb.append(formattedCharAt(i, yearWidth));
+        }
+        return sb;
+    }
+
+    /**
+     * Writes the date in the format yyyy-MM-dd into the specified array.
+     *
+     * @param dst    the array to write to
+     * @param offset the index of the first character to write
+     *
+     * @return the index after the last character written
+     */
+    public int writeYyyyMmDd(final char[] dst, final int offset)
+    {
+        int yearWidth;
+        int length;
+
+        yearWidth = getYearWidth();
+        length    = getYyyyMmDdLength(yearWidth);
+
+        for(int i = 0; i < length; i++)
+        {
+            dst[offset + i] = formattedCharAt(i, yearWidth);
+        }
+        return offset + length;
+    }
+
+    /**
+     * Writes the date in the format yyyy-MM-dd into the specified buffer as ASCII bytes, which is also its UTF-8
+     * encoding.
+     *
+     * @param dst the buffer to write to, at its current position
+     *
+     * @return the buffer
+     */
+    public ByteBuffer writeYyyyMmDd(final ByteBuffer dst)
+    {
+        int yearWidth;
+        int length;
+
+        yearWidth = getYearWidth();
+        length    = getYyyyMmDdLength(yearWidth);
+
+        for(int i = 0; i < length; i++)
+        {
+            dst.put((byte) formattedCharAt(i, yearWidth));
+        }
+        return dst;
+    }
+
+    /**
+     * Parses a date in the format yyyy-MM-dd, as produced by {@link #getYyyyMmDd()}.
+     *
+     * @param text the text to parse
+     *
+     * @return the shared date
+     * @throws IllegalArgumentException if the text is not a valid date
+     */
+    public static Date parse(final CharSequence text)
+    {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a date in the format yyyy-MM-dd from a range of the specified text without copying it.
+     *
+     * @param text  the text to parse
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     *
+     * @return the shared date
+     * @throws IllegalArgumentException if the range is not a valid date
+     */
+    public static Date parse(final CharSequence text, final int start, final int end)
+    {
+        return parse(text, null, start, end);
+    }
+
+    /**
+     * Parses a date in the format yyyy-MM-dd from a range of ASCII or UTF-8 bytes without copying it.
+     *
+     * @param bytes  the bytes to parse
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     *
+     * @return the shared date
+     * @throws IllegalArgumentException if the range is not a valid date
+     */
+    public static Date parse(final byte[] bytes, final int offset, final int length)
+    {
+        return parse(null, bytes, offset, offset + length);
     }
 
     /**
@@ -181,28 +423,7 @@ public class Date
     @Override
     public Date previous()
     {
-        int previousDay;
-        int previousYear;
-        int previousMonth;
-
-        previousDay   = day - DAY_INCREMENT;
-        previousMonth = month;
-        previousYear  = year;
-
-        // If the day goes below 1, adjust the month and year accordingly
-        if(previousDay < MIN_DAY)
-        {
-            previousMonth--;
-            if(previousMonth < MIN_MONTH)
-            {
-                previousMonth = MAX_MONTH;
-                previousYear--;
-            }
-            // Set the day to the last day of the new month
-            previousDay = getNumberOfDaysPerMonth(previousMonth, previousYear);
-        }
-
-        return new Date(previousDay, previousMonth, previousYear);
+        return minusDays(DAY_INCREMENT);
     }
 
     /**
@@ -213,31 +434,65 @@ public class Date
     @Override
     public Date next()
     {
-        int nextDay;
-        int nextMonth;
-        int nextYear;
+        return plusDays(DAY_INCREMENT);
+    }
+
+    /**
+     * Returns the date that is the specified number of days after this date. Runs in constant time.
+     *
+     * @param days the number of days to add (may be negative)
+     *
+     * @return the resulting date
+     * @throws IllegalArgumentException if the result falls outside the supported years or in year 0
+     */
+    public Date plusDays(final int days)
+    {
+        return shift(days);
+    }
 
-        nextDay   = day + DAY_INCREMENT;
-        nextMonth = month;
-        nextYear  = year;
+    /**
+     * Returns the date that is the specified number of days before this date. Runs in constant time.
+     *
+     * @param days the number of days to subtract (may be negative)
+     *
+     * @return the resulting date
+     * @throws IllegalArgumentException if the result falls outside the supported years or in year 0
+     */
+    public Date minusDays(final int days)
+    {
+        return shift(-(long) days);
+    }
 
-        // Get the number of days in the current month
-        int daysInMonth = getNumberOfDaysPerMonth(nextMonth, nextYear);
+    /**
+     * Returns the date that is the specified number of days away from this date.
+     *
+     * @param days the number of days to move by
+     *
+     * @return the resulting date
+     * @throws IllegalArgumentException if the result falls outside the supported years or in year 0
+     */
+    private Date shift(final long days)
+    {
+        long result;
+        result = epochDay + days;
 
-        // If the day exceeds the number of days in the month, adjust the month and year accordingly
-        if(nextDay > daysInMonth)
+        if(result < MIN_EPOCH_DAY || result > MAX_EPOCH_DAY)
         {
-            nextDay = MIN_DAY;
-            nextMonth++;
-            if(nextMonth > MAX_MONTH)
-            {
-                nextMonth = MIN_MONTH; // Move to the next year and set month to January
-                nextYear++;
-            }
+            throw new IllegalArgumentException(INVALID_YEAR);
         }
+        return CACHE.get((int) result);
+    }
 
-        return new Date(nextDay, nextMonth, nextYear);
-
+    /**
+     * Returns the number of days from this date until the specified date.
+     *
+     * @param d the end date
+     *
+     * @return the number of days, negative if the specified date is before this date
+     */
+    public int daysUntil(final Date d)
+    {
+        return d.epochDay - epochDay;
     }
 
     /**
@@ -251,97 +506,306 @@ public class Date
     @Override
     public int compareTo(final Date d)
     {
-        if(year != d.year)
+        return Integer.compare(epochDay, d.epochDay);
+    }
+
+    /**
+     * Returns whether the specified object is a Date on the same day as this date.
+     *
+     * @param o the object to compare to
+     *
+     * @return true if the object is an equal date, false otherwise
+     */
+    @Override
+    public boolean equals(final Object o)
+    {
+        return o instanceof Date && ((Date) o).epochDay == epochDay;
+    }
+
+    /**
+     * Returns the hash code of this date.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode()
+    {
+        return Integer.hashCode(epochDay);
+    }
+
+    /**
+     * Returns the day of the week for this date.
+     *
+     * @return the day of the week
+     */
+    public String getDayOfTheWeek()
+    {
+        return getWeekday().getDisplayName();
+    }
+
+    /**
+     * Returns the day of the week for this date as a shared constant. Correct for every supported year.
+     *
+     * @return the day of the week
+     */
+    public Weekday getWeekday()
+    {
+        return Weekday.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Returns the number of characters in the year part of the formatted date, sign included.
+     *
+     * @return the year width
+     */
+    private int getYearWidth()
+    {
+        int width;
+        int remaining;
+
+        width     = year < 0 ? 2 : 1;
+        remaining = Math.abs(year) / DECIMAL_BASE;
+
+        while(remaining > 0)
+        {
+            width++;
+            remaining /= DECIMAL_BASE;
+        }
+        return Math.max(width, MIN_YEAR_WIDTH);
+    }
+
+    /**
+     * Returns the number of characters in the yyyy-MM-dd form of a date with the specified year width.
+     *
+     * @param yearWidth the year width
+     *
+     * @return the formatted length
+     */
+    private static int getYyyyMmDdLength(final int yearWidth)
+    {
+        return yearWidth + TWO_DIGIT_WIDTH * 2 + 2;
+    }
+
+    /**
+     * Returns the character at the specified position of the yyyy-MM-dd form of this date.
+     *
+     * @param index     the position, from 0 to getYyyyMmDdLength() - 1
+     * @param yearWidth the year width, from getYearWidth()
+     *
+     * @return the character
+     */
+    private char formattedCharAt(final int index, final int yearWidth)
+    {
+        if(index < yearWidth)
         {
-            return Integer.compare(year, d.year);
+            if(year < 0 && index == 0)
+            {
+                return MINUS_SIGN;
+            }
+            return digitAt(Math.abs(year), yearWidth - 1 - index);
         }
-        if(month != d.month)
+        if(index == yearWidth || index == yearWidth + TWO_DIGIT_WIDTH + 1)
         {
-            return Integer.compare(month, d.month);
+            return SEPARATOR;
         }
-        return Integer.compare(day, d.day);
+        if(index <= yearWidth + TWO_DIGIT_WIDTH)
+        {
+            return digitAt(month, yearWidth + TWO_DIGIT_WIDTH - index);
+        }
+        return digitAt(day, yearWidth + TWO_DIGIT_WIDTH * 2 + 1 - index);
     }
 
     /**
-     * Returns the day of the week for this date.
+     * Returns the decimal digit of the specified value at the specified place.
      *
-     * @return the day of the week
+     * @param value the non-negative value
+     * @param place the place, 0 for the ones digit
+     *
+     * @return the digit character
      */
-    public String getDayOfTheWeek()
+    private static char digitAt(final int value, final int place)
+    {
+        int remaining;
+        remaining = value;
+
+        for(int i = 0; i < place; i++)
+        {
+            remaining /= DECIMAL_BASE;
+        }
+        return (char) (ZERO + remaining % DECIMAL_BASE);
+    }
+
+    /**
+     * Parses a date in the format yyyy-MM-dd from either characters or bytes.
+     *
+     * @param chars the characters to parse, or null to parse bytes
+     * @param bytes the bytes to parse when chars is null
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     *
+     * @return the shared date
+     * @throws IllegalArgumentException if the range is not a valid date
+     */
+    private static Date parse(final CharSequence chars, final byte[] bytes, final int start, final int end)
     {
-        int step1; // Step1: extract last two digits of the year, divide by 12, ie. August 16, 1989 -> 7 twelves in 89
-        int step2; // Step2: determine remainder of step1, ie. 89 – (7 * 12) = 5
-        int step3; // Step3: determine how many fours fit into step2, ie. 1 four in 5
-        int step4; // Step4: add the day of the month, ie. 16 for August 16th
-        int step5; // Step5: add the month code from the table provided (use getCodeForMonth(int month))
-        int step6; // Step6: (sum of steps 1-5 + special offset) mod by 7
-        int specialOffset; // special offset to add
-        int dayOfTheWeek; // step6
-
-        step1 = (year % YEARS_PER_CENTURY) / MONTHS_PER_YEAR;
-        step2 = (year % YEARS_PER_CENTURY) - (step1 * MONTHS_PER_YEAR);
-        step3 = step2 / LEAP_YEAR_DIVISOR_4;
-        step4 = day;
-        step5 = getCodeForMonth(month);
-
-        specialOffset = 0;
-        // January and February dates in leap years: add 6 to step 5
-        if(isLeapYear(year) && (month == JANUARY || month == FEBRUARY))
+        int     index;
+        int     yearStart;
+        long    yearValue;
+        int     monthValue;
+        int     dayValue;
+        boolean negative;
+
+        index    = start;
+        negative = index < end && charAt(chars, bytes, index) == MINUS_SIGN;
+        if(negative)
         {
-            specialOffset += LEAP_YEAR_SPECIAL_OFFSET;
+            index++;
         }
 
-        /**
-         All dates in the 1600s: add 6 to step 5
-         All dates in the 1700s: add 4 to step 5
-         All dates in the 1800s: add 2 to step 5
-         All dates in the 2000s: add 6 to step 5
-         All dates in the 2100s: add 4 to step 5 */
-        if(year >= CENTURY_1600 && year < CENTURY_1700)
+        yearStart = index;
+        yearValue = 0;
+        while(index < end && isDigit(charAt(chars, bytes, index)) && yearValue <= MAX_YEAR)
         {
-            specialOffset += CENTURY_1600_OFFSET;
+            yearValue = yearValue * DECIMAL_BASE + (charAt(chars, bytes, index) - ZERO);
+            index++;
         }
-        else if(year >= CENTURY_1700 && year < CENTURY_1800)
+
+        // The year is at least four characters wide, sign included, and exactly the digits that remain before -MM-dd
+        if(index - start < MIN_YEAR_WIDTH || index == yearStart || end - index != TWO_DIGIT_WIDTH * 2 + 2 ||
+           charAt(chars, bytes, index) != SEPARATOR || charAt(chars, bytes, index + TWO_DIGIT_WIDTH + 1) != SEPARATOR)
         {
-            specialOffset += CENTURY_1700_OFFSET;
+            throw new IllegalArgumentException(INVALID_FORMAT);
         }
-        else if(year >= CENTURY_1800 && year < CENTURY_1900)
+
+        monthValue = parseTwoDigits(chars, bytes, index + 1);
+        dayValue   = parseTwoDigits(chars, bytes, index + TWO_DIGIT_WIDTH + 2);
+
+        if(yearValue > MAX_YEAR)
         {
-            specialOffset += CENTURY_1800_OFFSET;
+            throw new IllegalArgumentException(INVALID_YEAR);
         }
-        else if(year >= CENTURY_2000 && year < CENTURY_2100)
+        return of(dayValue, monthValue, negative ? (int) -yearValue : (int) yearValue);
+    }
+
+    /**
+     * Parses two decimal digits from either characters or bytes.
+     *
+     * @param chars the characters to parse, or null to parse bytes
+     * @param bytes the bytes to parse when chars is null
+     * @param index the index of the first digit
+     *
+     * @return the two-digit value
+     * @throws IllegalArgumentException if either character is not a digit
+     */
+    private static int parseTwoDigits(final CharSequence chars, final byte[] bytes, final int index)
+    {
+        char tens;
+        char ones;
+
+        tens = charAt(chars, bytes, index);
+        ones = charAt(chars, bytes, index + 1);
+
+        if(!isDigit(tens) || !isDigit(ones))
         {
-            specialOffset += CENTURY_2000_OFFSET;
+            throw new IllegalArgumentException(INVALID_FORMAT);
         }
-        else if(year >= CENTURY_2100)
+        return (tens - ZERO) * DECIMAL_BASE + (ones - ZERO);
+    }
+
+    /**
+     * Returns the character at the specified index of either characters or bytes.
+     *
+     * @param chars the characters, or null to read bytes
+     * @param bytes the bytes to read when chars is null
+     * @param index the index
+     *
+     * @return the character
+     */
+    private static char charAt(final CharSequence chars, final byte[] bytes, final int index)
+    {
+        return chars != null ? chars.charAt(index) : (char) (bytes[index] & 0xFF);
+    }
+
+    /**
+     * Checks if the specified character is an ASCII decimal digit.
+     *
+     * @param c the character
+     *
+     * @return true if the character is a digit, false otherwise
+     */
+    private static boolean isDigit(final char c)
+    {
+        return c >= ZERO && c <= NINE;
+    }
+
+    /**
+     * Validates the specified year without making a Date, so callers that only need the check leave the date cache
+     * alone.
+     *
+     * @param year the year
+     *
+     * @throws IllegalArgumentException if the year is 0 or outside the supported range
+     */
+    static void checkYear(final int year)
+    {
+        if(year == INVALID_YEAR_VALUE || year < MIN_YEAR || year > MAX_YEAR)
         {
-            specialOffset += CENTURY_2100_OFFSET;
+            throw new IllegalArgumentException(INVALID_YEAR);
         }
+    }
 
-        step6        = (step1 + step2 + step3 + step4 + step5 + specialOffset) % DAYS_PER_WEEK;
-        dayOfTheWeek = step6;
+    /**
+     * Validates the specified day, month, and year.
+     *
+     * @param day   the day of the month
+     * @param month the month of the year
+     * @param year  the year
+     *
+     * @throws IllegalArgumentException if the date is invalid
+     */
+    private static void validateDate(final int day, final int month, final int year)
+    {
+        checkYear(year);
 
-        switch(dayOfTheWeek)
+        if(month < MIN_MONTH || month > MAX_MONTH)
         {
-            case 0:
-                return SATURDAY;
-            case 1:
-                return SUNDAY;
-            case 2:
-                return MONDAY;
-            case 3:
-                return TUESDAY;
-            case 4:
-                return WEDNESDAY;
-            case 5:
-                return THURSDAY;
-            case 6:
-                return FRIDAY;
-            default:
-                return INVALID_DAY;
+            throw new IllegalArgumentException(INVALID_MONTH);
+        }
+        if(day < MIN_DAY || day > getNumberOfDaysPerMonth(month, year))
+        {
+            throw new IllegalArgumentException(INVALID_DAY);
         }
     }
 
+    /**
+     * Returns the number of days between 1970-01-01 and the specified date. Uses the era-based civil calendar
+     * algorithm, which counts years from March so that the leap day is the last day of the year.
+     *
+     * @param day   the day of the month
+     * @param month the month
+     * @param year  the year
+     *
+     * @return the epoch day
+     */
+    private static int toEpochDay(final int day, final int month, final int year)
+    {
+        int shiftedYear;
+        int shiftedMonth;
+        int era;
+        int yearOfEra;
+        int dayOfYear;
+        int dayOfEra;
+
+        shiftedYear  = month <= FEBRUARY ? year - 1 : year;
+        shiftedMonth = month > FEBRUARY ? month - MARCH : month - MARCH + MONTHS_PER_YEAR; // March = 0
+        era          = Math.floorDiv(shiftedYear, YEARS_PER_ERA);
+        yearOfEra    = shiftedYear - era * YEARS_PER_ERA;
+        dayOfYear    = (MONTH_CYCLE_DAYS * shiftedMonth + MONTH_CYCLE_OFFSET) / MONTH_CYCLE_MONTHS + day - MIN_DAY;
+        dayOfEra     = yearOfEra * DAYS_PER_YEAR + yearOfEra / LEAP_YEAR_DIVISOR_4 - yearOfEra / YEARS_PER_CENTURY + dayOfYear;
+
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_FROM_ERA_START_TO_EPOCH;
+    }
+
     /**
      * Checks if the specified year is a leap year.
      *
@@ -349,7 +813,7 @@ public class Date
      *
      * @return true if the year is a leap year, false otherwise
      */
-    private boolean isLeapYear(final int year)
+    private static boolean isLeapYear(final int year)
     {
         return (year % LEAP_YEAR_DIVISOR_400 == 0) || ((year % LEAP_YEAR_DIVISOR_4 == 0) && (year % YEARS_PER_CENTURY != 0));
     }
@@ -363,7 +827,7 @@ public class Date
      * @return the number of days in the month
      * @throws IllegalArgumentException if the month is invalid
      */
-    private int getNumberOfDaysPerMonth(final int month, final int year)
+    private static int getNumberOfDaysPerMonth(final int month, final int year)
     {
         switch(month)
         {
@@ -388,40 +852,4 @@ public class Date
                 throw new IllegalArgumentException(INVALID_MONTH);
         }
     }
-
-    /**
-     * Returns the code for the specified month.
-     *
-     * @param month the month
-     *
-     * @return the code for the month
-     * @throws IllegalArgumentException if the month is invalid
-     */
-    private int getCodeForMonth(final int month)
-    {
-        switch(month)
-        {
-            case 1:
-            case 10:
-                return SPECIALCODE_1;
-            case 2:
-            case 3:
-            case 11:
-                return SPECIALCODE_4;
-            case 4:
-            case 7:
-                return SPECIALCODE_0;
-            case 5:
-                return SPECIALCODE_2;
-            case 6:
-                return SPECIALCODE_5;
-            case 8:
-                return SPECIALCODE_3;
-            case 9:
-            case 12:
-                return SPECIALCODE_6;
-            default:
-                throw new IllegalArgumentException(INVALID_MONTH);
-        }
-    }
 }
@@ -0,0 +1,152 @@
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * A bounded canonicalizing cache of dates keyed on their epoch day. Each day maps to one slot of a fixed-size table, so
+ * lookups never allocate and the cache never grows. When two cached days share a slot the newer one replaces the
+ * older one. Because dates are immutable, sharing an instance is always safe. Threads may race to fill a slot; the
+ * worst case is a short-lived duplicate instance.
+ *
+ * @author Sabrina Nunes
+ */
+public class DateCache
+{
+    private final Date[]            table;
+    private final int               mask;
+    private final IntFunction<Date> factory;
+    private final LongAdder         hits;
+    private final LongAdder         misses;
+
+    private final static String INVALID_CAPACITY;
+
+    static
+    {
+        INVALID_CAPACITY = "capacity must be a positive power of two";
+    }
+
+    /**
+     * Constructs a DateCache with the specified number of slots.
+     *
+     * @param capacity the number of slots, a power of two
+     * @param factory  creates the date for an epoch day on a miss
+     *
+     * @throws IllegalArgumentException if the capacity is not a positive power of two
+     */
+    public DateCache(final int capacity, final IntFunction<Date> factory)
+    {
+        if(capacity <= 0 || Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException(INVALID_CAPACITY);
+        }
+        this.table   = new Date[capacity];
+        this.mask    = capacity - 1;
+        this.factory = factory;
+        this.hits    = new LongAdder();
+        this.misses  = new LongAdder();
+    }
+
+    /**
+     * Returns the cached date for the specified epoch day, creating and caching it on a miss.
+     *
+     * @param epochDay the number of days since 1970-01-01
+     *
+     * @return the shared date
+     */
+    public Date get(final int epochDay)
+    {
+        int  slot;
+        Date cached;
+
+        slot   = epochDay & mask;
+        cached = table[slot];
+
+        if(cached != null && cached.getEpochDay() == epochDay)
+        {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        cached      = factory.apply(epochDay);
+        table[slot] = cached;
+        return cached;
+    }
+
+    /**
+     * Returns the cached date equal to the specified date. If none is cached, the specified date is cached and
+     * returned.
+     *
+     * @param date the date to canonicalize
+     *
+     * @return the shared date
+     */
+    public Date intern(final Date date)
+    {
+        int  slot;
+        Date cached;
+
+        slot   = date.getEpochDay() & mask;
+        cached = table[slot];
+
+        if(cached != null && cached.getEpochDay() == date.getEpochDay())
+        {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        table[slot] = date;
+        return date;
+    }
+
+    /**
+     * Returns the number of slots in the cache.
+     *
+     * @return the capacity
+     */
+    public int getCapacity()
+    {
+        return table.length;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached date.
+     *
+     * @return the hit count
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to create or install a date.
+     *
+     * @return the miss count
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there have been no lookups
+     */
+    public double getHitRate()
+    {
+        long hitCount;
+        long total;
+
+        hitCount = hits.sum();
+        total    = hitCount + misses.sum();
+
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /** Resets the hit and miss counts to zero. */
+    public void resetStatistics()
+    {
+        hits.reset();
+        misses.reset();
+    }
+}
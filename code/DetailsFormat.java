@@ -0,0 +1,37 @@
+/**
+ * The record format of {@link School#saveDetails()}: one line per person, such as "Albert Einstein (A.E.) was born on
+ * Friday 1879-03-14 and died on Monday 1955-04-18.", ended by the platform line separator.
+ *
+ * @author Sabrina Nunes
+ */
+public class DetailsFormat
+        implements RecordFormat
+{
+    private final static String LINE_SEPARATOR;
+
+    static
+    {
+        LINE_SEPARATOR = System.lineSeparator();
+    }
+
+    /**
+     * Appends the details line of the specified person.
+     *
+     * @param p      the person
+     * @param record the builder to append to
+     */
+    @Override
+    public void appendRecord(final Person p, final StringBuilder record)
+    {
+        record.append(p.getName().getPrettyName()).append(" (").append(p.getName().getInitials())
+              .append(") was born on ").append(p.getDateOfBirth().getDayOfTheWeek()).append(' ');
+        p.getDateOfBirth().appendYyyyMmDd(record);
+
+        if(!p.isAlive())
+        {
+            record.append(" and died on ").append(p.getDateOfDeath().getDayOfTheWeek()).append(' ');
+            p.getDateOfDeath().appendYyyyMmDd(record);
+        }
+        record.append('.').append(LINE_SEPARATOR);
+    }
+}
@@ -0,0 +1,251 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds people who may have been registered twice under slightly different spellings. Each person is filed under the
+ * Soundex code of their last name together with their exact date of birth, so a new registration is only compared
+ * with the handful of people in the same bucket instead of the whole roster. Within a bucket, two people match when
+ * their first names have the same Soundex code or one first name starts with the other (e.g. "Will" and "William").
+ * Safe for concurrent use; checks are serialized.
+ *
+ * @author Sabrina Nunes
+ */
+public class DuplicateDetector
+{
+    private final Map<Long, Bucket> buckets;
+
+    private final static int    SOUNDEX_DIGITS;
+    private final static String SOUNDEX_CODES; // digit for each letter A to Z; '0' for vowels, H, W, and Y
+    private final static char   SOUNDEX_SKIPPED;
+    private final static char   SOUNDEX_SEPARATOR; // H and W do not separate letters with the same code
+
+    static
+    {
+        SOUNDEX_DIGITS    = 3;
+        SOUNDEX_CODES     = "01230120022455012623010202";
+        SOUNDEX_SKIPPED   = '0';
+        SOUNDEX_SEPARATOR = '7';
+    }
+
+    /** Constructs an empty DuplicateDetector. */
+    public DuplicateDetector()
+    {
+        buckets = new HashMap<>();
+    }
+
+    /**
+     * Returns the rows already filed that may be the same person as the specified person, then files the person
+     * under the specified row.
+     *
+     * @param p   the person being registered
+     * @param row the roster row of the person
+     *
+     * @return the rows of the suspected duplicates, empty if there are none
+     */
+    public synchronized int[] checkAndAdd(final Person p, final int row)
+    {
+        return check(p, row);
+    }
+
+    /**
+     * Checks and files a batch of people registered together, in order, so people in the batch are also matched
+     * against each other. The person at position i is filed under row firstRow + i.
+     *
+     * @param batch    the people being registered
+     * @param firstRow the roster row of the first person
+     *
+     * @return the rows of the suspected duplicates of each person, in batch order
+     */
+    public synchronized int[][] checkAndAddAll(final List<? extends Person> batch, final int firstRow)
+    {
+        int[][] matches;
+        matches = new int[batch.size()][];
+
+        for(int i = 0; i < matches.length; i++)
+        {
+            matches[i] = check(batch.get(i), firstRow + i);
+        }
+        return matches;
+    }
+
+    /**
+     * Does the work of {@link #checkAndAdd(Person, int)}. The caller holds this detector's lock.
+     *
+     * @param p   the person being registered
+     * @param row the roster row of the person
+     *
+     * @return the rows of the suspected duplicates
+     */
+    private int[] check(final Person p, final int row)
+    {
+        String first;
+        int    firstCode;
+        Bucket bucket;
+        int[]  matches;
+
+        first     = normalize(p.getName().getFirst());
+        firstCode = soundex(first);
+        bucket    = buckets.computeIfAbsent(keyOf(p), key->new Bucket());
+        matches   = bucket.findMatches(first, firstCode);
+
+        bucket.add(row, p.getName().getFirstId(), firstCode);
+
+        return matches;
+    }
+
+    /**
+     * Returns the bucket key of the specified person: the last name's Soundex code and the date of birth.
+     *
+     * @param p the person
+     *
+     * @return the key
+     */
+    private static long keyOf(final Person p)
+    {
+        return ((long) soundex(normalize(p.getName().getLast())) << Integer.SIZE) |
+               (p.getDateOfBirth().getEpochDay() & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Returns the specified name stripped and in upper case.
+     *
+     * @param name the name
+     *
+     * @return the normalized name
+     */
+    private static String normalize(final String name)
+    {
+        return name.strip().toUpperCase();
+    }
+
+    /**
+     * Returns the American Soundex code of the specified normalized name packed into an int: the first letter in the
+     * high bits and the three digits below. Names that do not start with a letter from A to Z have no phonetic code,
+     * so their hash is used instead and they only match the same spelling.
+     *
+     * @param name the normalized name
+     *
+     * @return the packed code
+     */
+    static int soundex(final String name)
+    {
+        char first;
+        int  code;
+        int  digits;
+        char previous;
+
+        first = name.charAt(0);
+        if(first < 'A' || first > 'Z')
+        {
+            return -Math.abs(name.hashCode()) - 1;
+        }
+
+        code     = first - 'A';
+        digits   = 0;
+        previous = SOUNDEX_CODES.charAt(first - 'A');
+
+        for(int i = 1; i < name.length() && digits < SOUNDEX_DIGITS; i++)
+        {
+            char c;
+            char digit;
+
+            c = name.charAt(i);
+            if(c < 'A' || c > 'Z')
+            {
+                continue;
+            }
+            digit = c == 'H' || c == 'W' ? SOUNDEX_SEPARATOR : SOUNDEX_CODES.charAt(c - 'A');
+
+            if(digit == SOUNDEX_SEPARATOR)
+            {
+                continue;
+            }
+            if(digit != SOUNDEX_SKIPPED && digit != previous)
+            {
+                code = code * 10 + (digit - '0');
+                digits++;
+            }
+            previous = digit;
+        }
+        for(; digits < SOUNDEX_DIGITS; digits++)
+        {
+            code *= 10;
+        }
+        return code;
+    }
+
+    /** The people filed under one key, with the first names needed to confirm a match. */
+    private static class Bucket
+    {
+        private int[] rows;
+        private int[] firstCodes;
+        private int[] firstIds;
+        private int   size;
+
+        /** Constructs an empty Bucket. */
+        Bucket()
+        {
+            rows       = new int[1];
+            firstCodes = new int[1];
+            firstIds   = new int[1];
+            size       = 0;
+        }
+
+        /**
+         * Files a person in this bucket.
+         *
+         * @param row       the roster row
+         * @param firstId   the dictionary id of the first name
+         * @param firstCode the Soundex code of the first name
+         */
+        void add(final int row, final int firstId, final int firstCode)
+        {
+            if(size == rows.length)
+            {
+                rows       = Arrays.copyOf(rows, size * 2);
+                firstCodes = Arrays.copyOf(firstCodes, size * 2);
+                firstIds   = Arrays.copyOf(firstIds, size * 2);
+            }
+            rows[size]       = row;
+            firstCodes[size] = firstCode;
+            firstIds[size]   = firstId;
+            size++;
+        }
+
+        /**
+         * Returns the rows in this bucket whose first name matches the specified first name.
+         *
+         * @param first     the normalized first name
+         * @param firstCode the Soundex code of the first name
+         *
+         * @return the matching rows
+         */
+        int[] findMatches(final String first, final int firstCode)
+        {
+            int[] matches;
+            int   count;
+
+            matches = new int[size];
+            count   = 0;
+
+            for(int i = 0; i < size; i++)
+            {
+                String other;
+
+                if(firstCodes[i] == firstCode)
+                {
+                    matches[count++] = rows[i];
+                    continue;
+                }
+                other = normalize(Name.getDictionary().resolve(firstIds[i]));
+                if(other.startsWith(first) || first.startsWith(other))
+                {
+                    matches[count++] = rows[i];
+                }
+            }
+            return count == 0 ? new int[0] : Arrays.copyOf(matches, count);
+        }
+    }
+}
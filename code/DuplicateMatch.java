@@ -0,0 +1,54 @@
+/**
+ * Represents a suspected duplicate found on registration: a newly registered person who has the same date of birth
+ * as an existing person and a name that sounds the same.
+ *
+ * @author Sabrina Nunes
+ */
+public class DuplicateMatch
+{
+    private final Person registered;
+    private final Person existing;
+
+    /**
+     * Constructs a DuplicateMatch.
+     *
+     * @param registered the person being registered
+     * @param existing   the person already on the roster
+     */
+    public DuplicateMatch(final Person registered, final Person existing)
+    {
+        this.registered = registered;
+        this.existing   = existing;
+    }
+
+    /**
+     * Returns the person whose registration raised the match.
+     *
+     * @return the newly registered person
+     */
+    public Person getRegistered()
+    {
+        return registered;
+    }
+
+    /**
+     * Returns the person already on the roster who looks like the same person.
+     *
+     * @return the existing person
+     */
+    public Person getExisting()
+    {
+        return existing;
+    }
+
+    /**
+     * Returns the string representation of this match.
+     *
+     * @return the string representation of this match
+     */
+    @Override
+    public String toString()
+    {
+        return registered.getName().getPrettyName() + " may duplicate " + existing.getName().getPrettyName();
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a details file up to date by appending only what changed since the last save, instead of rewriting the whole
+ * roster each time. A save appends a record for every person registered since the last save, and a fresh record for
+ * every earlier person with a later change sequence number (see {@link Person#getChangeSequence()}), such as a
+ * death.
+ * <p>
+ * The file is read line by line, one line per record, so the record format must write exactly one line per person.
+ * A compacted file holds one line per person in row order: line n is the person at row n. Every line a save
+ * appends is keyed with the row of its person, as KEY_PREFIX, the row, and KEY_SEPARATOR before the record, such as
+ * "\u001E2 Elon Musk (E.M.) was born on ...". KEY_PREFIX is a control character so that ordinary records never start
+ * with it; a record that does, e.g. because a first name starts with it, is keyed even in a compacted file, so only
+ * keyed lines ever start with KEY_PREFIX. A keyed line for a row already in the file replaces that row's earlier
+ * line, and a keyed line for the next row adds a person; the later line always wins. {@link #readLatest(Path)}
+ * applies this rule.
+ * <p>
+ * Compaction rewrites the file from the roster into a temporary file next to it and moves it into place atomically,
+ * so readers see either the old file or the clean one. A save compacts on its own once the superseded records make
+ * up more than a fixed share of the file, and compaction can also be run on a schedule. Rows are remembered across
+ * saves, so the exporter must always be given snapshots of the same roster, and each roster needs its own file.
+ * Saves are serialized.
+ *
+ * @author Sabrina Nunes
+ */
+public class IncrementalExporter
+{
+    private final Path             path;
+    private final KeyedFormat      escaped; // keys only the records that start with KEY_PREFIX
+    private final RosterSerializer serializer;
+    private final KeyedFormat      keyed;
+    private final RosterSerializer appender; // writes keyed records
+    private       int              savedRows; // people on the roster when the file was last brought up to date
+    private       long             savedSequence; // every change up to this number is in the file
+    private       int              superseded; // records in the file replaced by a later record
+    private       boolean          started;
+
+    private final static int    COMPACT_DIVISOR; // compact once superseded records exceed 1/COMPACT_DIVISOR of rows
+    private final static String TEMP_SUFFIX;
+    private final static char   KEY_PREFIX;
+    private final static char   KEY_SEPARATOR;
+    private final static String CORRUPT;
+
+    static
+    {
+        COMPACT_DIVISOR = 8;
+        TEMP_SUFFIX     = ".tmp";
+        KEY_PREFIX      = '\u001E'; // the ASCII record separator
+        KEY_SEPARATOR   = ' ';
+        CORRUPT         = "bad keyed record";
+    }
+
+    /**
+     * Constructs an IncrementalExporter that maintains the specified file in the specified format. The first save
+     * writes the whole file.
+     *
+     * @param path   the details file
+     * @param format the record format
+     */
+    public IncrementalExporter(final Path path, final RecordFormat format)
+    {
+        this.path          = path;
+        this.escaped       = new KeyedFormat(format, false);
+        this.serializer    = new RosterSerializer(escaped);
+        this.keyed         = new KeyedFormat(format, true);
+        this.appender      = new RosterSerializer(keyed);
+        this.savedRows     = 0;
+        this.savedSequence = 0;
+        this.superseded    = 0;
+        this.started       = false;
+    }
+
+    /**
+     * Appends the records of people who are new or have changed since the last save. Writes the whole file instead
+     * if it has not been written yet or is missing, and compacts it if too many of its records are superseded.
+     *
+     * @param roster a snapshot of the roster
+     *
+     * @return the number of records written
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized int save(final Roster roster)
+            throws IOException
+    {
+        long         sequence;
+        List<Person> changed;
+        IntList      rows;
+
+        if(!started || !Files.exists(path))
+        {
+            return compact(roster);
+        }
+
+        // Read the sequence first: a change that races with the scan is then written again next time, never missed
+        sequence = Person.currentChangeSequence();
+        changed  = new ArrayList<>();
+        rows     = new IntList();
+
+        for(int row = 0; row < savedRows; row++)
+        {
+            Person p;
+            p = roster.get(row);
+
+            if(p.getChangeSequence() > savedSequence)
+            {
+                changed.add(p);
+                rows.add(row);
+            }
+        }
+        for(int row = savedRows; row < roster.size(); row++)
+        {
+            changed.add(roster.get(row));
+            rows.add(row);
+        }
+
+        keyed.setRows(rows);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+        {
+            appender.write(changed, channel);
+        }
+        superseded   += changed.size() - (roster.size() - savedRows);
+        savedRows     = roster.size();
+        savedSequence = sequence;
+
+        if(superseded > savedRows / COMPACT_DIVISOR)
+        {
+            compact(roster);
+        }
+        return changed.size();
+    }
+
+    /**
+     * Rewrites the file with exactly one record per person, replacing it atomically.
+     *
+     * @param roster a snapshot of the roster
+     *
+     * @return the number of records written
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized int compact(final Roster roster)
+            throws IOException
+    {
+        long sequence;
+        Path temp;
+
+        sequence = Person.currentChangeSequence();
+        temp     = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+
+        escaped.setRows(null);
+        serializer.write(roster, temp);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        savedRows     = roster.size();
+        savedSequence = sequence;
+        superseded    = 0;
+        started       = true;
+        return roster.size();
+    }
+
+    /**
+     * Reads a details file kept by an IncrementalExporter and applies its keyed records: the result holds the latest
+     * record of every person, in row order, without keys or line terminators.
+     *
+     * @param path the details file
+     *
+     * @return the latest record of each row
+     * @throws IOException if the file cannot be read or a keyed line names a row past the next new one
+     */
+    public static List<String> readLatest(final Path path)
+            throws IOException
+    {
+        List<String> records;
+        records = new ArrayList<>();
+
+        for(String line : Files.readAllLines(path, StandardCharsets.UTF_8))
+        {
+            if(!line.isEmpty() && line.charAt(0) == KEY_PREFIX)
+            {
+                addKeyed(line, records);
+            }
+            else
+            {
+                records.add(line);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Applies one keyed line to the records read so far.
+     *
+     * @param line    the line, starting with KEY_PREFIX
+     * @param records the latest record of each row so far
+     *
+     * @throws IOException if the key is malformed or names a row past the next new one
+     */
+    private static void addKeyed(final String line, final List<String> records)
+            throws IOException
+    {
+        int    separator;
+        int    row;
+        String record;
+
+        separator = line.indexOf(KEY_SEPARATOR);
+        if(separator < 0)
+        {
+            throw new IOException(CORRUPT);
+        }
+        try
+        {
+            row = Integer.parseInt(line.substring(1, separator));
+        }
+        catch(final NumberFormatException e)
+        {
+            throw new IOException(CORRUPT, e);
+        }
+        record = line.substring(separator + 1);
+
+        if(row >= 0 && row < records.size())
+        {
+            records.set(row, record);
+        }
+        else if(row == records.size())
+        {
+            records.add(record);
+        }
+        else
+        {
+            throw new IOException(CORRUPT);
+        }
+    }
+
+    /**
+     * A record format that writes each record after the key of the row it belongs to: every record, or only those
+     * that would otherwise be mistaken for a keyed line.
+     */
+    private static class KeyedFormat
+            implements RecordFormat
+    {
+        private final RecordFormat format;
+        private final boolean      always;
+        private       IntList      rows; // null when the rows run in order from 0
+        private       int          next;
+
+        /**
+         * Constructs a KeyedFormat around the specified format.
+         *
+         * @param format the format of the records themselves
+         * @param always true to key every record, false to key only records that start with KEY_PREFIX
+         */
+        KeyedFormat(final RecordFormat format, final boolean always)
+        {
+            this.format = format;
+            this.always = always;
+            this.rows   = null;
+            this.next   = 0;
+        }
+
+        /**
+         * Sets the rows of the people about to be written, in the order they will be written.
+         *
+         * @param rows the rows, or null if every person is about to be written in row order
+         */
+        void setRows(final IntList rows)
+        {
+            this.rows = rows;
+            this.next = 0;
+        }
+
+        /**
+         * Appends the record of the specified person, after the key of the next row if it needs one.
+         *
+         * @param p      the person
+         * @param record the builder to append to
+         */
+        @Override
+        public void appendRecord(final Person p, final StringBuilder record)
+        {
+            int start;
+            int row;
+
+            start = record.length();
+            row   = rows == null ? next : rows.get(next);
+            next++;
+
+            if(always)
+            {
+                record.append(KEY_PREFIX).append(row).append(KEY_SEPARATOR);
+                format.appendRecord(p, record);
+            }
+            else
+            {
+                format.appendRecord(p, record);
+                if(record.length() > start && record.charAt(start) == KEY_PREFIX)
+                {
+                    record.insert(start, KEY_SEPARATOR).insert(start, row).insert(start, KEY_PREFIX);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+/**
+ * A growable list of ints stored in a primitive array. Used by the roster indexes to hold row numbers without boxing.
+ *
+ * @author Sabrina Nunes
+ */
+public class IntList
+{
+    private int[] values;
+    private int   size;
+
+    private final static int DEFAULT_CAPACITY;
+
+    static
+    {
+        DEFAULT_CAPACITY = 8;
+    }
+
+    /** Constructs an empty IntList. */
+    public IntList()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty IntList with room for the specified number of values.
+     *
+     * @param capacity the initial capacity
+     */
+    public IntList(final int capacity)
+    {
+        values = new int[Math.max(capacity, 1)];
+        size   = 0;
+    }
+
+    /**
+     * Appends a value.
+     *
+     * @param value the value
+     */
+    public void add(final int value)
+    {
+        if(size == values.length)
+        {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Appends the first values of the specified array.
+     *
+     * @param source the values to copy from
+     * @param count  the number of values to copy
+     */
+    public void addAll(final int[] source, final int count)
+    {
+        if(size + count > values.length)
+        {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + count));
+        }
+        System.arraycopy(source, 0, values, size, count);
+        size += count;
+    }
+
+    /**
+     * Appends a range of the specified array.
+     *
+     * @param source the values to copy from
+     * @param from   the position of the first value, inclusive
+     * @param to     the position of the last value, exclusive
+     */
+    public void addRange(final int[] source, final int from, final int to)
+    {
+        int count;
+        count = to - from;
+
+        if(size + count > values.length)
+        {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + count));
+        }
+        System.arraycopy(source, from, values, size, count);
+        size += count;
+    }
+
+    /** Sorts the values into ascending order. */
+    public void sort()
+    {
+        Arrays.sort(values, 0, size);
+    }
+
+    /**
+     * Returns the value at the specified position.
+     *
+     * @param index the position
+     *
+     * @return the value
+     * @throws IndexOutOfBoundsException if the position is not below size()
+     */
+    public int get(final int index)
+    {
+        if(index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the values.
+     *
+     * @return a copy of the values
+     */
+    public int[] toArray()
+    {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A roster that keeps the registered Person objects in a list. Not safe for concurrent use; a school used from a
+ * single thread may use it instead of the default {@link ChunkedRoster}. Its snapshots are copies, so they can be
+ * handed to another thread, such as a background save, while the roster keeps growing.
+ *
+ * @author Sabrina Nunes
+ */
+public class ListRoster
+        implements Roster
+{
+    private final List<Person> people;
+
+    /** Constructs an empty ListRoster. */
+    public ListRoster()
+    {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructs a ListRoster that keeps its people in the specified list.
+     *
+     * @param people the list, owned by the new roster from now on
+     */
+    private ListRoster(final List<Person> people)
+    {
+        this.people = people;
+    }
+
+    /**
+     * Appends a person.
+     *
+     * @param p the person to add
+     *
+     * @return the row of the person
+     */
+    @Override
+    public int add(final Person p)
+    {
+        people.add(p);
+        return people.size() - 1;
+    }
+
+    /**
+     * Appends a batch of people, growing the list once.
+     *
+     * @param batch the people to add
+     *
+     * @return the row of the first person in the batch
+     */
+    @Override
+    public int addAll(final List<? extends Person> batch)
+    {
+        int first;
+        first = people.size();
+
+        people.addAll(batch);
+        return first;
+    }
+
+    /**
+     * Returns the person at the specified row.
+     *
+     * @param row the row
+     *
+     * @return the person
+     */
+    @Override
+    public Person get(final int row)
+    {
+        return people.get(row);
+    }
+
+    /**
+     * Returns the number of people.
+     *
+     * @return the size
+     */
+    @Override
+    public int size()
+    {
+        return people.size();
+    }
+
+    /**
+     * Returns an immutable copy of the people on the roster now. Unlike the constant-time view of other rosters, this
+     * copies the list, in time linear in its size: the list cannot be read safely on one thread while it grows on
+     * another.
+     *
+     * @return the snapshot
+     */
+    @Override
+    public Roster snapshot()
+    {
+        return new RosterSnapshot(new ListRoster(new ArrayList<>(people)), people.size());
+    }
+
+    /**
+     * Returns an iterator over the people in row order.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Person> iterator()
+    {
+        return people.iterator();
+    }
+}
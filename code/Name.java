@@ -1,20 +1,28 @@
 /**
- * Represents a person's name with a first and last name. Provides methods to validate and format the name.
+ * Represents a person's name with a first and last name. Provides methods to validate and format the name. The
+ * pretty name and initials are computed on first use and then reused, since a name never changes.
+ * <p>
+ * The first and last names are stored as ids in a shared {@link NameDictionary}, so each distinct spelling is held
+ * in memory once no matter how many people have it.
  *
  * @author Sabrina Nunes
  */
 public class Name
 {
-    private final String first;
-    private final String last;
+    private final int    firstId;
+    private final int    lastId;
+    private       String prettyName; // lazily computed; a racy first call may compute it twice, which is harmless
+    private       String initials;   // lazily computed, like prettyName
 
-    private final static String INVALID_FIRST_NAME;
-    private final static String INVALID_LAST_NAME;
+    private final static String         INVALID_FIRST_NAME;
+    private final static String         INVALID_LAST_NAME;
+    private final static NameDictionary DICTIONARY;
 
     static
     {
         INVALID_FIRST_NAME = "invalid first name";
         INVALID_LAST_NAME  = "invalid last name";
+        DICTIONARY         = new NameDictionary();
     }
 
     /**
@@ -30,8 +38,48 @@ public class Name
         validateName(first, "first");
         validateName(last, "last");
 
-        this.first = first;
-        this.last  = last;
+        this.firstId = DICTIONARY.intern(first);
+        this.lastId  = DICTIONARY.intern(last);
+    }
+
+    /**
+     * Constructs a Name from ids already in the shared dictionary.
+     *
+     * @param firstId the id of the first name
+     * @param lastId  the id of the last name
+     */
+    private Name(final int firstId, final int lastId)
+    {
+        this.firstId = firstId;
+        this.lastId  = lastId;
+    }
+
+    /**
+     * Returns the Name with the specified dictionary ids, as returned by {@link #getFirstId()} and
+     * {@link #getLastId()}.
+     *
+     * @param firstId the id of the first name
+     * @param lastId  the id of the last name
+     *
+     * @return the name
+     * @throws IllegalArgumentException if either id is not in the dictionary
+     */
+    public static Name ofIds(final int firstId, final int lastId)
+    {
+        DICTIONARY.resolve(firstId);
+        DICTIONARY.resolve(lastId);
+
+        return new Name(firstId, lastId);
+    }
+
+    /**
+     * Returns the dictionary shared by all names.
+     *
+     * @return the name dictionary
+     */
+    public static NameDictionary getDictionary()
+    {
+        return DICTIONARY;
     }
 
     /**
@@ -64,7 +112,7 @@ public class Name
      */
     public String getFirst()
     {
-        return first;
+        return DICTIONARY.resolve(firstId);
     }
 
     /**
@@ -74,7 +122,27 @@ public class Name
      */
     public String getLast()
     {
-        return last;
+        return DICTIONARY.resolve(lastId);
+    }
+
+    /**
+     * Returns the dictionary id of the first name.
+     *
+     * @return the first name id
+     */
+    public int getFirstId()
+    {
+        return firstId;
+    }
+
+    /**
+     * Returns the dictionary id of the last name.
+     *
+     * @return the last name id
+     */
+    public int getLastId()
+    {
+        return lastId;
     }
 
     /**
@@ -84,7 +152,15 @@ public class Name
      */
     public String getPrettyName()
     {
-        return capitalize(first.strip()) + " " + capitalize(last.strip());
+        String pretty;
+        pretty = prettyName;
+
+        if(pretty == null)
+        {
+            pretty     = capitalize(getFirst()) + " " + capitalize(getLast());
+            prettyName = pretty;
+        }
+        return pretty;
     }
 
     /**
@@ -94,7 +170,34 @@ public class Name
      */
     public String getInitials()
     {
-        return capitalize(first).charAt(0) + "." + capitalize(last).charAt(0) + ".";
+        String formatted;
+        formatted = initials;
+
+        if(formatted == null)
+        {
+            formatted = initialOf(getFirst()) + "." + initialOf(getLast()) + ".";
+            initials  = formatted;
+        }
+        return formatted;
+    }
+
+    /**
+     * Returns the capitalized first letter of the specified name, ignoring leading white space.
+     *
+     * @param str the name
+     *
+     * @return the initial
+     */
+    private char initialOf(final String str)
+    {
+        int start;
+        start = 0;
+
+        while(Character.isWhitespace(str.charAt(start)))
+        {
+            start++;
+        }
+        return Character.toUpperCase(str.charAt(start));
     }
 
     /**
@@ -104,8 +207,11 @@ public class Name
      *
      * @return the capitalized string
      */
-    private String capitalize(String str)
+    private String capitalize(final String str)
     {
-        return Character.toUpperCase(str.strip().charAt(0)) + str.strip().substring(1).toLowerCase();
+        String stripped;
+        stripped = str.strip();
+
+        return Character.toUpperCase(stripped.charAt(0)) + stripped.substring(1).toLowerCase();
     }
 }
@@ -0,0 +1,132 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A dictionary that assigns each distinct string a small int id. Rosters repeat a few thousand first and last names
+ * across hundreds of thousands of people, so storing ids instead of strings saves most of the memory names take.
+ * Ids are handed out in insertion order starting at 0 and never change. Safe for concurrent inserts and lookups.
+ *
+ * @author Sabrina Nunes
+ */
+public class NameDictionary
+{
+    private final ConcurrentMap<String, Integer>                     ids;
+    private final AtomicReferenceArray<AtomicReferenceArray<String>> chunks;
+    private final AtomicInteger                                      nextId;
+
+    private final static int    CHUNK_BITS;
+    private final static int    CHUNK_SIZE;
+    private final static int    CHUNK_MASK;
+    private final static int    MAX_CHUNKS;
+    private final static String DICTIONARY_FULL;
+    private final static String UNKNOWN_ID;
+
+    static
+    {
+        CHUNK_BITS      = 12;
+        CHUNK_SIZE      = 1 << CHUNK_BITS;
+        CHUNK_MASK      = CHUNK_SIZE - 1;
+        MAX_CHUNKS      = 1 << 16;
+        DICTIONARY_FULL = "name dictionary is full";
+        UNKNOWN_ID      = "unknown name id";
+    }
+
+    /** Constructs an empty NameDictionary. */
+    public NameDictionary()
+    {
+        ids    = new ConcurrentHashMap<>();
+        chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+        nextId = new AtomicInteger();
+    }
+
+    /**
+     * Returns the id of the specified string, assigning a new id if the string has not been seen before.
+     *
+     * @param name the string to intern
+     *
+     * @return the id
+     * @throws IllegalStateException if the dictionary has run out of ids
+     */
+    public int intern(final String name)
+    {
+        Integer id;
+        id = ids.get(name);
+
+        if(id == null)
+        {
+            id = ids.computeIfAbsent(name, this::store);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the string with the specified id.
+     *
+     * @param id the id, as returned by {@link #intern(String)}
+     *
+     * @return the string
+     * @throws IllegalArgumentException if no string has that id
+     */
+    public String resolve(final int id)
+    {
+        AtomicReferenceArray<String> chunk;
+        String                       name;
+
+        if(id < 0 || id >= nextId.get())
+        {
+            throw new IllegalArgumentException(UNKNOWN_ID);
+        }
+        chunk = chunks.get(id >>> CHUNK_BITS);
+        name  = chunk == null ? null : chunk.get(id & CHUNK_MASK);
+
+        if(name == null)
+        {
+            throw new IllegalArgumentException(UNKNOWN_ID);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the number of distinct strings in the dictionary.
+     *
+     * @return the size
+     */
+    public int size()
+    {
+        return ids.size();
+    }
+
+    /**
+     * Assigns the next id to the specified string and records it. Called at most once per string.
+     *
+     * @param name the new string
+     *
+     * @return the new id
+     */
+    private Integer store(final String name)
+    {
+        int                          id;
+        int                          chunkIndex;
+        AtomicReferenceArray<String> chunk;
+
+        id         = nextId.getAndIncrement();
+        chunkIndex = id >>> CHUNK_BITS;
+
+        if(id < 0 || chunkIndex >= MAX_CHUNKS)
+        {
+            throw new IllegalStateException(DICTIONARY_FULL);
+        }
+
+        chunk = chunks.get(chunkIndex);
+        if(chunk == null)
+        {
+            chunks.compareAndSet(chunkIndex, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = chunks.get(chunkIndex);
+        }
+        chunk.set(id & CHUNK_MASK, name);
+
+        return id;
+    }
+}
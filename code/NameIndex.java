@@ -0,0 +1,400 @@
+import java.util.Arrays;
+
+/**
+ * A prefix trie over names that maps each normalized name to the roster rows of the people who have it. Names are
+ * compared ignoring case and surrounding white space, the same way {@link Name#getPrettyName()} normalizes them, so
+ * a query for "WO" finds "woODs". Children are kept in character order, so matches come back alphabetically.
+ * <p>
+ * Safe for concurrent use. Names are split into STRIPES independent tries by their first character, each guarded by
+ * its own lock, so concurrent registrations rarely wait on each other.
+ *
+ * @author Sabrina Nunes
+ */
+public class NameIndex
+{
+    private final Node[] roots;
+
+    private final static int INITIAL_ROWS;
+    private final static int NO_LIMIT;
+    private final static int STRIPES;
+
+    static
+    {
+        INITIAL_ROWS = 1;
+        NO_LIMIT     = Integer.MAX_VALUE;
+        STRIPES      = 16;
+    }
+
+    /** Constructs an empty NameIndex. */
+    public NameIndex()
+    {
+        roots = new Node[STRIPES];
+
+        for(int i = 0; i < STRIPES; i++)
+        {
+            roots[i] = new Node();
+        }
+    }
+
+    /**
+     * Adds a roster row under the specified name.
+     *
+     * @param name the name
+     * @param row  the roster row of the person with that name
+     */
+    public void add(final String name, final int row)
+    {
+        String key;
+        Node   node;
+
+        key  = normalize(name);
+        node = rootFor(key.charAt(0));
+
+        synchronized(node)
+        {
+            insert(node, key, row);
+        }
+    }
+
+    /**
+     * Adds a batch of roster rows, each under the name at the same position. Each stripe is locked once for the
+     * whole batch rather than once per name.
+     *
+     * @param names the names
+     * @param rows  the roster rows of the people with those names
+     * @param count the number of names to add
+     */
+    public void addAll(final String[] names, final int[] rows, final int count)
+    {
+        String[] keys;
+        keys = new String[count];
+
+        for(int i = 0; i < count; i++)
+        {
+            keys[i] = normalize(names[i]);
+        }
+        for(Node root : roots)
+        {
+            synchronized(root)
+            {
+                for(int i = 0; i < count; i++)
+                {
+                    if(rootFor(keys[i].charAt(0)) == root)
+                    {
+                        insert(root, keys[i], rows[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the rows of every group under the group's name. Each name is normalized and looked up once, and its rows
+     * are attached in one copy, so the cost grows with the number of distinct names rather than of rows.
+     *
+     * @param groups the rows grouped by name, such as those of a {@link RosterFile}
+     */
+    public void addAll(final RowGroups groups)
+    {
+        for(int group = 0; group < groups.size(); group++)
+        {
+            String key;
+            Node   root;
+
+            if(groups.start(group) == groups.end(group))
+            {
+                continue;
+            }
+            key  = normalize(groups.getString(group));
+            root = rootFor(key.charAt(0));
+
+            synchronized(root)
+            {
+                nodeFor(root, key).addRows(groups.rows(), groups.start(group), groups.end(group));
+            }
+        }
+    }
+
+    /**
+     * Returns the rows of every name that starts with the specified prefix.
+     *
+     * @param prefix the prefix; an empty prefix matches every name
+     *
+     * @return the matching rows in alphabetical order of name
+     */
+    public int[] find(final String prefix)
+    {
+        return find(prefix, NO_LIMIT);
+    }
+
+    /**
+     * Returns the rows of names that start with the specified prefix, stopping after the specified number of rows.
+     *
+     * @param prefix the prefix; an empty prefix matches every name
+     * @param limit  the maximum number of rows to return
+     *
+     * @return the matching rows in alphabetical order of name
+     */
+    public int[] find(final String prefix, final int limit)
+    {
+        String  key;
+        Node    root;
+        Node    node;
+        IntList matches;
+
+        key     = normalize(prefix);
+        matches = new IntList();
+
+        if(key.isEmpty())
+        {
+            collectAll(matches, limit);
+            return matches.toArray();
+        }
+
+        root = rootFor(key.charAt(0));
+        synchronized(root)
+        {
+            node = root;
+            for(int i = 0; i < key.length() && node != null; i++)
+            {
+                node = node.childAt(key.charAt(i));
+            }
+            if(node != null && limit > 0)
+            {
+                node.collect(matches, limit);
+            }
+        }
+        return matches.toArray();
+    }
+
+    /**
+     * Collects the rows of every name, in alphabetical order across all stripes.
+     *
+     * @param matches the list to add to
+     * @param limit   the size at which to stop
+     */
+    private void collectAll(final IntList matches, final int limit)
+    {
+        StringBuilder firstChars;
+        char[]        ordered;
+
+        firstChars = new StringBuilder();
+        for(Node root : roots)
+        {
+            synchronized(root)
+            {
+                firstChars.append(root.keys);
+            }
+        }
+        ordered = firstChars.toString().toCharArray();
+        Arrays.sort(ordered);
+
+        for(int i = 0; i < ordered.length && matches.size() < limit; i++)
+        {
+            Node root;
+            root = rootFor(ordered[i]);
+
+            synchronized(root)
+            {
+                root.childAt(ordered[i]).collect(matches, limit);
+            }
+        }
+    }
+
+    /**
+     * Adds a row under the specified key, creating nodes as needed. The caller holds the lock of the stripe root.
+     *
+     * @param root the stripe root
+     * @param key  the normalized name
+     * @param row  the roster row
+     */
+    private static void insert(final Node root, final String key, final int row)
+    {
+        nodeFor(root, key).addRow(row);
+    }
+
+    /**
+     * Returns the node of the specified key, creating nodes as needed. The caller holds the lock of the stripe root.
+     *
+     * @param root the stripe root
+     * @param key  the normalized name
+     *
+     * @return the node
+     */
+    private static Node nodeFor(final Node root, final String key)
+    {
+        Node node;
+        node = root;
+
+        for(int i = 0; i < key.length(); i++)
+        {
+            node = node.childFor(key.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Returns the root of the stripe that holds names starting with the specified character.
+     *
+     * @param first the first character of the normalized name
+     *
+     * @return the stripe root
+     */
+    private Node rootFor(final char first)
+    {
+        return roots[first & (STRIPES - 1)];
+    }
+
+    /**
+     * Returns the specified name in the form used as a key: stripped and lower case.
+     *
+     * @param name the name
+     *
+     * @return the key
+     */
+    private static String normalize(final String name)
+    {
+        return name.strip().toLowerCase();
+    }
+
+    /** A trie node: the children in character order and the rows of people whose name ends here. */
+    private static class Node
+    {
+        private char[] keys;
+        private Node[] children;
+        private int[]  rows;
+        private int    rowCount;
+
+        /** Constructs a Node with no children and no rows. */
+        Node()
+        {
+            keys     = new char[0];
+            children = new Node[0];
+            rows     = null;
+            rowCount = 0;
+        }
+
+        /**
+         * Returns the child for the specified character, or null if there is none.
+         *
+         * @param c the character
+         *
+         * @return the child or null
+         */
+        Node childAt(final char c)
+        {
+            int position;
+            position = Arrays.binarySearch(keys, c);
+
+            return position >= 0 ? children[position] : null;
+        }
+
+        /**
+         * Returns the child for the specified character, creating it if there is none.
+         *
+         * @param c the character
+         *
+         * @return the child
+         */
+        Node childFor(final char c)
+        {
+            int    position;
+            int    insertAt;
+            Node   child;
+            char[] newKeys;
+            Node[] newChildren;
+
+            position = Arrays.binarySearch(keys, c);
+            if(position >= 0)
+            {
+                return children[position];
+            }
+
+            insertAt    = -position - 1;
+            child       = new Node();
+            newKeys     = new char[keys.length + 1];
+            newChildren = new Node[children.length + 1];
+
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt]     = c;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+            keys     = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        /**
+         * Adds a row to this node.
+         *
+         * @param row the roster row
+         */
+        void addRow(final int row)
+        {
+            if(rows == null)
+            {
+                rows = new int[INITIAL_ROWS];
+            }
+            else if(rowCount == rows.length)
+            {
+                rows = Arrays.copyOf(rows, rowCount * 2);
+            }
+            rows[rowCount++] = row;
+        }
+
+        /**
+         * Adds a range of ascending rows to this node, growing it once. Rows stay in ascending order even when two
+         * spellings of one name, such as "Woods" and "woods", are added one after the other.
+         *
+         * @param source the array holding the rows
+         * @param from   the position of the first row, inclusive
+         * @param to     the position of the last row, exclusive
+         */
+        void addRows(final int[] source, final int from, final int to)
+        {
+            int     count;
+            boolean ordered;
+
+            count   = to - from;
+            ordered = rowCount == 0 || rows[rowCount - 1] < source[from];
+
+            if(rows == null)
+            {
+                rows = new int[count];
+            }
+            else if(rowCount + count > rows.length)
+            {
+                rows = Arrays.copyOf(rows, Math.max(rowCount * 2, rowCount + count));
+            }
+            System.arraycopy(source, from, rows, rowCount, count);
+            rowCount += count;
+
+            if(!ordered)
+            {
+                Arrays.sort(rows, 0, rowCount);
+            }
+        }
+
+        /**
+         * Adds the rows of this node and its descendants to the specified list, depth first.
+         *
+         * @param matches the list to add to
+         * @param limit   the size at which to stop
+         */
+        void collect(final IntList matches, final int limit)
+        {
+            if(rowCount > 0)
+            {
+                matches.addAll(rows, Math.min(rowCount, limit - matches.size()));
+            }
+
+            for(int i = 0; i < children.length && matches.size() < limit; i++)
+            {
+                children[i].collect(matches, limit);
+            }
+        }
+    }
+}
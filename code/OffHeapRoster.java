@@ -0,0 +1,379 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A roster that stores people as fixed-width records (see {@link PersonRecord}) in direct byte buffers outside the
+ * Java heap. Memory is allocated in segments of SEGMENT_RECORDS records, so the heap holds only one small buffer
+ * object per segment however many people are stored, and the garbage collector never scans the records.
+ * {@link #get(int)} and iteration build Person views on demand.
+ * <p>
+ * Deaths are written into the record's death field, whether they are recorded with {@link #recordDeath(int, int)}
+ * or by {@link Person#die(Date)} on a view or on the person registered here (see {@link Person}). Their change
+ * sequence numbers are kept in a parallel segment of longs, allocated for a segment of records only once someone in
+ * it changes.
+ * <p>
+ * Snapshots are copies of the records, so they can be handed to another thread, such as a background save, while the
+ * roster keeps growing. A death recorded through a snapshot is recorded on this roster.
+ *
+ * @author Sabrina Nunes
+ */
+public class OffHeapRoster
+        implements Roster
+{
+    private ByteBuffer[] segments;
+    private ByteBuffer[] changes; // change sequence numbers by row; null for a segment where nobody has changed
+    private int          size;
+
+    private final OffHeapRoster owner; // deaths are recorded here: this roster, or the one a snapshot was copied from
+
+    private final static int SEGMENT_BITS;
+    private final static int SEGMENT_RECORDS;
+    private final static int SEGMENT_MASK;
+
+    static
+    {
+        SEGMENT_BITS    = 16;
+        SEGMENT_RECORDS = 1 << SEGMENT_BITS; // 2 MiB per segment
+        SEGMENT_MASK    = SEGMENT_RECORDS - 1;
+    }
+
+    /** Constructs an empty OffHeapRoster. */
+    public OffHeapRoster()
+    {
+        segments = new ByteBuffer[0];
+        changes  = new ByteBuffer[0];
+        size     = 0;
+        owner    = this;
+    }
+
+    /**
+     * Constructs an OffHeapRoster holding a copy of the records and change sequence numbers of the specified roster,
+     * for a snapshot. Only the rows in use are copied.
+     *
+     * @param source the roster to copy
+     */
+    private OffHeapRoster(final OffHeapRoster source)
+    {
+        segments = new ByteBuffer[source.segments.length];
+        changes  = new ByteBuffer[source.changes.length];
+        size     = source.size;
+        owner    = source.owner;
+
+        for(int segment = 0; segment < segments.length; segment++)
+        {
+            int rows;
+            rows = Math.min(SEGMENT_RECORDS, size - (segment << SEGMENT_BITS));
+
+            segments[segment] = copyOf(source.segments[segment], rows * PersonRecord.RECORD_BYTES);
+            if(segment < changes.length && source.changes[segment] != null)
+            {
+                changes[segment] = copyOf(source.changes[segment], rows * Long.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Appends a person.
+     *
+     * @param p the person to add
+     *
+     * @return the row of the person
+     */
+    @Override
+    public int add(final Person p)
+    {
+        PersonRecord.write(segmentFor(size), offsetOf(size), p);
+        if(p.getChangeSequence() != 0)
+        {
+            changesFor(size).putLong((size & SEGMENT_MASK) * Long.BYTES, p.getChangeSequence());
+        }
+        p.attach(this, size, p.getChangeSequence());
+
+        return size++;
+    }
+
+    /**
+     * Appends a record with the specified fields, for loading people that are already in record form.
+     *
+     * @param type    the record type
+     * @param born    the birth epoch day
+     * @param died    the death epoch day, or ALIVE
+     * @param firstId the dictionary id of the first name
+     * @param lastId  the dictionary id of the last name
+     * @param payload the student number code or specialty id
+     *
+     * @return the row of the record
+     */
+    int addRecord(final byte type, final int born, final int died, final int firstId, final int lastId,
+                  final long payload)
+    {
+        PersonRecord.write(segmentFor(size), offsetOf(size), type, born, died, firstId, lastId, payload);
+
+        return size++;
+    }
+
+    /**
+     * Returns the segment that holds the specified row, allocating it if it is the next one.
+     *
+     * @param row the row, at most one past the last row
+     *
+     * @return the segment
+     */
+    private ByteBuffer segmentFor(final int row)
+    {
+        int segment;
+        segment = row >>> SEGMENT_BITS;
+
+        if(segment == segments.length)
+        {
+            segments          = Arrays.copyOf(segments, segment + 1);
+            segments[segment] = ByteBuffer.allocateDirect(SEGMENT_RECORDS * PersonRecord.RECORD_BYTES)
+                                          .order(ByteOrder.nativeOrder());
+        }
+        return segments[segment];
+    }
+
+    /**
+     * Returns a Person view of the specified row.
+     *
+     * @param row the row
+     *
+     * @return a new Person, Student, or Teacher with the stored fields, attached to the row
+     */
+    @Override
+    public Person get(final int row)
+    {
+        Person p;
+
+        if(row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException(row);
+        }
+        p = PersonRecord.read(segments[row >>> SEGMENT_BITS], offsetOf(row));
+        p.attach(owner, row, changeOf(row));
+
+        return p;
+    }
+
+    /**
+     * Writes the death of the person at the specified row into its record. A copy made for a snapshot records it on
+     * the roster it was copied from instead.
+     *
+     * @param row      the row
+     * @param epochDay the day of death, as a number of days since 1970-01-01
+     */
+    @Override
+    public void recordDeath(final int row, final int epochDay)
+    {
+        if(row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException(row);
+        }
+        if(owner != this)
+        {
+            owner.recordDeath(row, epochDay);
+            return;
+        }
+        segments[row >>> SEGMENT_BITS].putInt(offsetOf(row) + PersonRecord.DIED_OFFSET,
+                                              Date.ofEpochDay(epochDay).getEpochDay()); // validates the day
+        changesFor(row).putLong((row & SEGMENT_MASK) * Long.BYTES, Person.nextChangeSequence());
+    }
+
+    /**
+     * Returns the change sequence number stored for the specified row.
+     *
+     * @param row the row
+     *
+     * @return the sequence number, or 0 if the person at the row has not changed
+     */
+    private long changeOf(final int row)
+    {
+        int segment;
+        segment = row >>> SEGMENT_BITS;
+
+        if(segment >= changes.length || changes[segment] == null)
+        {
+            return 0;
+        }
+        return changes[segment].getLong((row & SEGMENT_MASK) * Long.BYTES);
+    }
+
+    /**
+     * Returns the change sequence segment that covers the specified row, allocating it on first use.
+     *
+     * @param row the row
+     *
+     * @return the segment
+     */
+    private ByteBuffer changesFor(final int row)
+    {
+        int segment;
+        segment = row >>> SEGMENT_BITS;
+
+        if(segment >= changes.length)
+        {
+            changes = Arrays.copyOf(changes, segments.length);
+        }
+        if(changes[segment] == null)
+        {
+            changes[segment] = ByteBuffer.allocateDirect(SEGMENT_RECORDS * Long.BYTES).order(ByteOrder.nativeOrder());
+        }
+        return changes[segment];
+    }
+
+    /**
+     * Returns the number of people.
+     *
+     * @return the size
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns an immutable copy of the people on the roster now. Unlike the constant-time view of a
+     * {@link ChunkedRoster}, this copies the records, in time linear in the size: they cannot be read safely on one
+     * thread while they grow or change on another.
+     *
+     * @return the snapshot
+     */
+    @Override
+    public Roster snapshot()
+    {
+        return new RosterSnapshot(new OffHeapRoster(this), size);
+    }
+
+    /**
+     * Returns the number of living people born before the specified day, reading only the two date fields of each
+     * record.
+     *
+     * @param epochDay the day, as a number of days since 1970-01-01
+     *
+     * @return the count
+     */
+    @Override
+    public int countAliveBornBefore(final int epochDay)
+    {
+        int count;
+        count = 0;
+
+        for(int row = 0; row < size; row++)
+        {
+            ByteBuffer segment;
+            int        offset;
+
+            segment = segments[row >>> SEGMENT_BITS];
+            offset  = offsetOf(row);
+
+            if(segment.getInt(offset + PersonRecord.DIED_OFFSET) == PersonRecord.ALIVE &&
+               segment.getInt(offset + PersonRecord.BORN_OFFSET) < epochDay)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fills the specified array with ages in the specified year, reading only the two date fields of each record. The
+     * year of birth is only worked out for people alive in that year.
+     *
+     * @param year the year
+     * @param ages the array to fill, no longer than size()
+     */
+    @Override
+    public void agesInYear(final int year, final int[] ages)
+    {
+        int firstDay;
+        int lastDay;
+
+        firstDay = Date.of(1, 1, year).getEpochDay();
+        lastDay  = Date.of(31, 12, year).getEpochDay();
+
+        for(int row = 0; row < ages.length; row++)
+        {
+            ByteBuffer segment;
+            int        offset;
+            int        born;
+            int        died;
+
+            segment = segments[row >>> SEGMENT_BITS];
+            offset  = offsetOf(row);
+            born    = segment.getInt(offset + PersonRecord.BORN_OFFSET);
+            died    = segment.getInt(offset + PersonRecord.DIED_OFFSET);
+
+            if(born <= lastDay && (died == PersonRecord.ALIVE || died >= firstDay))
+            {
+                ages[row] = year - Date.ofEpochDay(born).getYear();
+            }
+            else
+            {
+                ages[row] = Person.NO_AGE;
+            }
+        }
+    }
+
+    /**
+     * Returns an iterator that builds a Person view of each row in order.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Person> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < size;
+            }
+
+            @Override
+            public Person next()
+            {
+                if(next >= size)
+                {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Copies the start of a segment into a new direct buffer of the same byte order, just large enough to hold it.
+     *
+     * @param segment the segment
+     * @param bytes   the number of bytes to copy
+     *
+     * @return the copy
+     */
+    private static ByteBuffer copyOf(final ByteBuffer segment, final int bytes)
+    {
+        ByteBuffer copy;
+        copy = ByteBuffer.allocateDirect(bytes).order(segment.order());
+
+        copy.put(0, segment, 0, bytes);
+        return copy;
+    }
+
+    /**
+     * Returns the byte offset of the specified row within its segment.
+     *
+     * @param row the row
+     *
+     * @return the offset
+     */
+    private static int offsetOf(final int row)
+    {
+        return (row & SEGMENT_MASK) * PersonRecord.RECORD_BYTES;
+    }
+}
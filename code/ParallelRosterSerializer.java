@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Writes a roster as UTF-8 text like {@link RosterSerializer}, but encodes it on a {@link ForkJoinPool}. The roster is
+ * split into chunks of consecutive rows; each chunk is rendered and encoded into its own byte array by one task, and
+ * the arrays are written in roster order, so the output is byte for byte that of {@link RosterSerializer}. A bounded
+ * number of chunks is in flight at a time: the caller's thread writes the oldest chunk while the pool encodes the
+ * ones after it, which bounds memory and overlaps encoding with I/O.
+ * <p>
+ * A serializer holds no buffers between calls and can be shared between threads.
+ *
+ * @author Sabrina Nunes
+ */
+public class ParallelRosterSerializer
+{
+    private final RecordFormat format;
+    private final ForkJoinPool pool;
+    private final int          inFlight; // chunks submitted but not yet written
+
+    private final static int CHUNK_PEOPLE; // people encoded by one task
+    private final static int CHUNKS_PER_THREAD;
+    private final static int CHUNK_BYTES; // initial size of a chunk's array
+
+    static
+    {
+        CHUNK_PEOPLE      = 4096;
+        CHUNKS_PER_THREAD = 4;
+        CHUNK_BYTES       = 1 << 18;
+    }
+
+    /**
+     * Constructs a ParallelRosterSerializer that writes the format of {@link School#saveDetails()} on the common
+     * fork-join pool.
+     */
+    public ParallelRosterSerializer()
+    {
+        this(new DetailsFormat(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ParallelRosterSerializer that writes the specified format on the specified pool.
+     *
+     * @param format the record format, which must be safe for concurrent use
+     * @param pool   the pool to encode on
+     */
+    public ParallelRosterSerializer(final RecordFormat format, final ForkJoinPool pool)
+    {
+        this.format   = format;
+        this.pool     = pool;
+        this.inFlight = CHUNKS_PER_THREAD * pool.getParallelism();
+    }
+
+    /**
+     * Writes the people on the specified roster to the file at the specified path, replacing its contents.
+     *
+     * @param people the roster, typically a snapshot
+     * @param path   the file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void write(final Roster people, final Path path)
+            throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            write(people, channel);
+        }
+    }
+
+    /**
+     * Writes the people on the specified roster to the specified channel, in row order. The channel is left open.
+     *
+     * @param people  the roster, typically a snapshot
+     * @param channel the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void write(final Roster people, final WritableByteChannel channel)
+            throws IOException
+    {
+        Deque<ForkJoinTask<ByteBuffer>> pending;
+        int                             size;
+        int                             next;
+
+        pending = new ArrayDeque<>();
+        size    = people.size();
+        next    = 0;
+
+        try
+        {
+            while(next < size || !pending.isEmpty())
+            {
+                ByteBuffer chunk;
+
+                while(next < size && pending.size() < inFlight)
+                {
+                    int start;
+                    int end;
+
+                    start = next;
+                    end   = Math.min(size, start + CHUNK_PEOPLE);
+                    pending.addLast(pool.submit(()->encode(people, start, end)));
+                    next  = end;
+                }
+
+                chunk = pending.removeFirst().join();
+                while(chunk.hasRemaining())
+                {
+                    channel.write(chunk);
+                }
+            }
+        }
+        finally
+        {
+            // Don't leave work running for an export that failed
+            for(ForkJoinTask<ByteBuffer> task : pending)
+            {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Renders and encodes the people in the specified range of rows.
+     *
+     * @param people the roster
+     * @param start  the first row, inclusive
+     * @param end    the last row, exclusive
+     *
+     * @return a buffer wrapping the encoded bytes
+     */
+    private ByteBuffer encode(final Roster people, final int start, final int end)
+    {
+        StringBuilder record;
+        byte[]        out;
+        int           filled;
+
+        record = new StringBuilder();
+        out    = new byte[CHUNK_BYTES];
+        filled = 0;
+
+        for(int row = start; row < end; row++)
+        {
+            int needed;
+
+            record.setLength(0);
+            format.appendRecord(people.get(row), record);
+
+            needed = filled + RosterSerializer.maxEncodedLength(record);
+            if(needed > out.length)
+            {
+                out = Arrays.copyOf(out, Math.max(needed, out.length * 2));
+            }
+            filled = RosterSerializer.encode(record, out, filled);
+        }
+        return ByteBuffer.wrap(out, 0, filled);
+    }
+}
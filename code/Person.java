@@ -1,15 +1,32 @@
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a person with a name and birthdate. Provides methods to access and manipulate the person's
- * information. This class can be extended to create specific types of people (e.g., Student, Teacher).
+ * information. This class can be extended to create specific types of people (e.g., Student, Teacher). Dates are
+ * interned through {@link Date#intern()}, so people born on the same day share one Date.
+ * <p>
+ * Every change to a person after construction is stamped with a number from one global, increasing change sequence,
+ * so an exporter can find the people changed since its last save by comparing sequence numbers.
+ * <p>
+ * A person can be attached to a row of a {@link Roster} that stores records rather than Person objects, such as a
+ * view that roster built or the person first registered with it. Recording a death on an attached person also
+ * records it on the roster, through {@link Roster#recordDeath(int, int)}, so the death is not lost with the object.
  *
  * @author Sabrina Nunes
  */
 public class Person
         implements Comparable<Person>
 {
-    private final Date born;
-    private       Date died;
-    private final Name name;
+    private final    Date born;
+    private          Date died;
+    private final    Name name;
+    private volatile long changeSequence; // 0 until the person is first changed
+    private          Roster owner; // the roster that stores this person as a record, or null
+    private          int    row; // the row of this person in owner
+
+    private final static AtomicLong CHANGES; // the last change sequence number handed out
+
+    public final static int NO_AGE; // age of a person who was not alive in a given year
 
     private final static String INVALID_DATE;
     private final static String INVALID_NAME;
@@ -17,6 +34,8 @@ public class Person
 
     static
     {
+        NO_AGE       = -1;
+        CHANGES      = new AtomicLong();
         INVALID_DATE = "invalid date of birth";
         INVALID_NAME = "invalid name";
         IS_NOT_DEAD  = "is not dead";
@@ -24,7 +43,10 @@ public class Person
 
     // instances
     {
-        died = null;
+        died           = null;
+        changeSequence = 0;
+        owner          = null;
+        row            = 0;
     }
 
     /**
@@ -38,7 +60,7 @@ public class Person
         validateInput(born, INVALID_DATE);
         validateInput(name, INVALID_NAME);
 
-        this.born = born;
+        this.born = born.intern();
         this.name = name;
     }
 
@@ -102,7 +124,74 @@ public class Person
     {
         validateInput(dateOfDeath, INVALID_DATE);
 
-        this.died = dateOfDeath;
+        if(owner != null)
+        {
+            owner.recordDeath(row, dateOfDeath.getEpochDay());
+        }
+        this.died           = dateOfDeath.intern();
+        this.changeSequence = nextChangeSequence();
+    }
+
+    /**
+     * Attaches this person to the specified row of a roster that stores people as records, so that a death recorded
+     * on this object is recorded on the roster too. A person already attached keeps its first roster.
+     *
+     * @param roster         the roster
+     * @param row            the row of this person in the roster
+     * @param changeSequence the change sequence number stored with the row, or 0 if it has not changed
+     */
+    void attach(final Roster roster, final int row, final long changeSequence)
+    {
+        if(owner == null)
+        {
+            this.owner          = roster;
+            this.row            = row;
+            this.changeSequence = Math.max(this.changeSequence, changeSequence);
+        }
+    }
+
+    /**
+     * Takes the next number of the global change sequence, for a change recorded outside a Person object.
+     *
+     * @return the sequence number
+     */
+    static long nextChangeSequence()
+    {
+        return CHANGES.incrementAndGet();
+    }
+
+    /**
+     * Sets the death date of a person being rebuilt from stored fields, such as a roster record. Unlike
+     * {@link #die(Date)} this is not a change, so no change sequence number is taken.
+     *
+     * @param dateOfDeath the death date
+     */
+    void restoreDeath(final Date dateOfDeath)
+    {
+        validateInput(dateOfDeath, INVALID_DATE);
+
+        this.died = dateOfDeath.intern();
+    }
+
+    /**
+     * Returns the change sequence number of the last change to this person.
+     *
+     * @return the sequence number, or 0 if the person has not changed since construction
+     */
+    public long getChangeSequence()
+    {
+        return changeSequence;
+    }
+
+    /**
+     * Returns the sequence number of the latest change to any person. Every person changed after this call will have a
+     * greater sequence number.
+     *
+     * @return the latest sequence number
+     */
+    public static long currentChangeSequence()
+    {
+        return CHANGES.get();
     }
 
     /**
@@ -115,6 +204,23 @@ public class Person
         return died == null;
     }
 
+    /**
+     * Returns the age of the person in the specified year: the year minus the year of birth, the same age that the
+     * ages-and-years report prints. A person who has died is alive up to and including the year of death.
+     *
+     * @param year the year
+     *
+     * @return the age, or NO_AGE if the person was not yet born or had already died in that year
+     */
+    public int getAgeInYear(final int year)
+    {
+        if(year < born.getYear() || (died != null && year > died.getYear()))
+        {
+            return NO_AGE;
+        }
+        return year - born.getYear();
+    }
+
     /**
      * Returns the comparison 2 people and their birthdates. Younger people are "larger".
      *
@@ -127,22 +233,52 @@ public class Person
     }
 
     /**
-     * Returns the string representation of this person.
+     * Appends the string representation of this person to the specified builder, so that many people can be rendered
+     * into one buffer without a String per person.
      *
-     * @return the string representation of this person
+     * @param string the builder to append to
+     *
+     * @return the builder
      */
-    @Override
-    public String toString()
+    public StringBuilder appendTo(final StringBuilder string)
     {
-        String string;
-        string = String.format("%s was born %s and is still alive", name.getPrettyName(), born.getYyyyMmDd());
-        ;
-        if(!isAlive())
+        string.append(name.getPrettyName());
+        appendRole(string).append(" was born ");
+        born.appendYyyyMmDd(string);
+
+        if(isAlive())
         {
-            string = String.format("%s was born %s and died %s", name.getPrettyName(), born.getYyyyMmDd(),
-                                   died.getYyyyMmDd());
+            string.append(" and is still alive");
         }
+        else
+        {
+            string.append(" and died ");
+            died.appendYyyyMmDd(string);
+        }
+        return string;
+    }
 
+    /**
+     * Appends what sets this kind of person apart, written between the name and the date of birth. A plain person has
+     * nothing to add.
+     *
+     * @param string the builder to append to
+     *
+     * @return the builder
+     */
+    protected StringBuilder appendRole(final StringBuilder string)
+    {
         return string;
     }
+
+    /**
+     * Returns the string representation of this person.
+     *
+     * @return the string representation of this person
+     */
+    @Override
+    public String toString()
+    {
+        return appendTo(new StringBuilder()).toString();
+    }
 }
@@ -0,0 +1,215 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Converts people to and from fixed-width records of primitive fields, for rosters that store people without keeping
+ * Person objects. A record holds the kind of person, the birth and death epoch days, the dictionary ids of the first
+ * and last name, and a payload: the encoded student number for a student or the specialty id for a teacher. In a
+ * byte buffer, a record takes RECORD_BYTES bytes laid out at the BORN_OFFSET, DIED_OFFSET, ... positions.
+ * <p>
+ * A record is a copy of the person taken when it is made. Rosters that store records attach the people they rebuild
+ * to their rows, so a later death reaches the record through {@link Roster#recordDeath(int, int)}.
+ *
+ * @author Sabrina Nunes
+ */
+public class PersonRecord
+{
+    public final static byte TYPE_PERSON;
+    public final static byte TYPE_STUDENT;
+    public final static byte TYPE_TEACHER;
+    public final static int  ALIVE; // death epoch day of a living person
+    public final static long NO_PAYLOAD;
+    public final static int  RECORD_BYTES;
+    public final static int  BORN_OFFSET;
+    public final static int  DIED_OFFSET;
+    public final static int  FIRST_ID_OFFSET;
+    public final static int  LAST_ID_OFFSET;
+    public final static int  PAYLOAD_OFFSET;
+    public final static int  TYPE_OFFSET;
+
+    private final static NameDictionary SPECIALTIES;
+    private final static String         UNKNOWN_TYPE;
+
+    static
+    {
+        TYPE_PERSON     = 0;
+        TYPE_STUDENT    = 1;
+        TYPE_TEACHER    = 2;
+        ALIVE           = Integer.MIN_VALUE;
+        NO_PAYLOAD      = 0L;
+        RECORD_BYTES    = 32; // 25 bytes of fields, padded so records stay 8-byte aligned
+        BORN_OFFSET     = 0;
+        DIED_OFFSET     = 4;
+        FIRST_ID_OFFSET = 8;
+        LAST_ID_OFFSET  = 12;
+        PAYLOAD_OFFSET  = 16;
+        TYPE_OFFSET     = 24;
+        SPECIALTIES     = new NameDictionary();
+        UNKNOWN_TYPE    = "unknown person type";
+    }
+
+    /** PersonRecord only has static helpers. */
+    private PersonRecord()
+    {
+    }
+
+    /**
+     * Returns the record type of the specified person.
+     *
+     * @param p the person
+     *
+     * @return TYPE_STUDENT, TYPE_TEACHER, or TYPE_PERSON
+     */
+    public static byte typeOf(final Person p)
+    {
+        if(p instanceof Student)
+        {
+            return TYPE_STUDENT;
+        }
+        if(p instanceof Teacher)
+        {
+            return TYPE_TEACHER;
+        }
+        return TYPE_PERSON;
+    }
+
+    /**
+     * Returns the death epoch day of the specified person.
+     *
+     * @param p the person
+     *
+     * @return the death epoch day, or ALIVE
+     */
+    public static int deathOf(final Person p)
+    {
+        return p.isAlive() ? ALIVE : p.getDateOfDeath().getEpochDay();
+    }
+
+    /**
+     * Returns the payload of the specified person.
+     *
+     * @param p the person
+     *
+     * @return the student number code, the specialty id, or NO_PAYLOAD
+     */
+    public static long payloadOf(final Person p)
+    {
+        if(p instanceof Student)
+        {
+            return ((Student) p).getStudentNumberCode();
+        }
+        if(p instanceof Teacher)
+        {
+            return SPECIALTIES.intern(((Teacher) p).getSpecialty());
+        }
+        return NO_PAYLOAD;
+    }
+
+    /**
+     * Returns the dictionary that holds teacher specialties by id.
+     *
+     * @return the specialty dictionary
+     */
+    public static NameDictionary getSpecialties()
+    {
+        return SPECIALTIES;
+    }
+
+    /**
+     * Writes the record of the specified person into a buffer.
+     *
+     * @param buffer the buffer
+     * @param offset the index of the record's first byte
+     * @param p      the person
+     */
+    public static void write(final ByteBuffer buffer, final int offset, final Person p)
+    {
+        write(buffer, offset, typeOf(p), p.getDateOfBirth().getEpochDay(), deathOf(p), p.getName().getFirstId(),
+              p.getName().getLastId(), payloadOf(p));
+    }
+
+    /**
+     * Writes a record with the specified fields into a buffer.
+     *
+     * @param buffer  the buffer
+     * @param offset  the index of the record's first byte
+     * @param type    the record type
+     * @param born    the birth epoch day
+     * @param died    the death epoch day, or ALIVE
+     * @param firstId the id of the first name
+     * @param lastId  the id of the last name
+     * @param payload the student number code or specialty id
+     */
+    public static void write(final ByteBuffer buffer, final int offset, final byte type, final int born,
+                             final int died, final int firstId, final int lastId, final long payload)
+    {
+        buffer.putInt(offset + BORN_OFFSET, born);
+        buffer.putInt(offset + DIED_OFFSET, died);
+        buffer.putInt(offset + FIRST_ID_OFFSET, firstId);
+        buffer.putInt(offset + LAST_ID_OFFSET, lastId);
+        buffer.putLong(offset + PAYLOAD_OFFSET, payload);
+        buffer.put(offset + TYPE_OFFSET, type);
+    }
+
+    /**
+     * Rebuilds a person from a record in a buffer.
+     *
+     * @param buffer the buffer
+     * @param offset the index of the record's first byte
+     *
+     * @return a new Person, Student, or Teacher
+     * @throws IllegalArgumentException if the record type is unknown
+     */
+    public static Person read(final ByteBuffer buffer, final int offset)
+    {
+        return toPerson(buffer.get(offset + TYPE_OFFSET), buffer.getInt(offset + BORN_OFFSET),
+                        buffer.getInt(offset + DIED_OFFSET), buffer.getInt(offset + FIRST_ID_OFFSET),
+                        buffer.getInt(offset + LAST_ID_OFFSET), buffer.getLong(offset + PAYLOAD_OFFSET));
+    }
+
+    /**
+     * Rebuilds a person from the fields of a record.
+     *
+     * @param type    the record type
+     * @param born    the birth epoch day
+     * @param died    the death epoch day, or ALIVE
+     * @param firstId the dictionary id of the first name
+     * @param lastId  the dictionary id of the last name
+     * @param payload the student number code or specialty id
+     *
+     * @return a new Person, Student, or Teacher
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    public static Person toPerson(final byte type, final int born, final int died, final int firstId,
+                                  final int lastId, final long payload)
+    {
+        Date   birthDate;
+        Name   name;
+        Person p;
+
+        birthDate = Date.ofEpochDay(born);
+        name      = Name.ofIds(firstId, lastId);
+
+        if(type == TYPE_PERSON)
+        {
+            p = new Person(birthDate, name);
+        }
+        else if(type == TYPE_STUDENT)
+        {
+            p = new Student(birthDate, name, payload);
+        }
+        else if(type == TYPE_TEACHER)
+        {
+            p = new Teacher(birthDate, name, SPECIALTIES.resolve((int) payload));
+        }
+        else
+        {
+            throw new IllegalArgumentException(UNKNOWN_TYPE);
+        }
+
+        if(died != ALIVE)
+        {
+            p.restoreDeath(Date.ofEpochDay(died));
+        }
+        return p;
+    }
+}
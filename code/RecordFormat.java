@@ -0,0 +1,17 @@
+/**
+ * An interface representing how one person is written when a roster is saved by a {@link RosterSerializer}. A format
+ * appends a whole record, including its line separator if it has one, to a builder that the serializer reuses for
+ * every person.
+ *
+ * @author Sabrina Nunes
+ */
+public interface RecordFormat
+{
+    /**
+     * Appends the record of the specified person.
+     *
+     * @param p      the person
+     * @param record the builder to append to
+     */
+    public void appendRecord(Person p, StringBuilder record);
+}
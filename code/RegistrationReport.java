@@ -0,0 +1,129 @@
+import java.util.List;
+
+/**
+ * Represents the outcome of registering a batch of people with {@link School#registerAll(java.util.Collection)}: how
+ * many were registered and, for each one that was not, where it was in the batch and why it was rejected.
+ *
+ * @author Sabrina Nunes
+ */
+public class RegistrationReport
+{
+    private final int             registered;
+    private final List<Rejection> rejections;
+
+    /**
+     * Constructs a RegistrationReport.
+     *
+     * @param registered the number of people registered
+     * @param rejections the rejected people, in batch order
+     */
+    public RegistrationReport(final int registered, final List<Rejection> rejections)
+    {
+        this.registered = registered;
+        this.rejections = List.copyOf(rejections);
+    }
+
+    /**
+     * Returns the number of people registered.
+     *
+     * @return the count
+     */
+    public int getRegistered()
+    {
+        return registered;
+    }
+
+    /**
+     * Returns the rejected people.
+     *
+     * @return an unmodifiable list of rejections, in batch order
+     */
+    public List<Rejection> getRejections()
+    {
+        return rejections;
+    }
+
+    /**
+     * Returns whether every person in the batch was registered.
+     *
+     * @return true if there were no rejections
+     */
+    public boolean isComplete()
+    {
+        return rejections.isEmpty();
+    }
+
+    /**
+     * Returns the string representation of this report.
+     *
+     * @return the string representation of this report
+     */
+    @Override
+    public String toString()
+    {
+        return registered + " registered, " + rejections.size() + " rejected";
+    }
+
+    /** A person that could not be registered and the reason, as the message of an {@link IllegalPersonException}. */
+    public static class Rejection
+    {
+        private final int    position;
+        private final Person person;
+        private final String reason;
+
+        /**
+         * Constructs a Rejection.
+         *
+         * @param position the position of the person in the batch
+         * @param person   the rejected person, possibly null
+         * @param reason   why the person was rejected
+         */
+        public Rejection(final int position, final Person person, final String reason)
+        {
+            this.position = position;
+            this.person   = person;
+            this.reason   = reason;
+        }
+
+        /**
+         * Returns the position of the rejected person in the batch, counting from zero.
+         *
+         * @return the position
+         */
+        public int getPosition()
+        {
+            return position;
+        }
+
+        /**
+         * Returns the rejected person.
+         *
+         * @return the person, or null if the batch held null at this position
+         */
+        public Person getPerson()
+        {
+            return person;
+        }
+
+        /**
+         * Returns why the person was rejected.
+         *
+         * @return the reason
+         */
+        public String getReason()
+        {
+            return reason;
+        }
+
+        /**
+         * Returns the string representation of this rejection.
+         *
+         * @return the string representation of this rejection
+         */
+        @Override
+        public String toString()
+        {
+            return "#" + position + ": " + reason;
+        }
+    }
+}
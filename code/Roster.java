@@ -0,0 +1,123 @@
+import java.util.List;
+
+/**
+ * An interface representing the storage behind a school's list of people. People are appended and then addressed by
+ * their row, the position at which they were added. Implementations may keep Person objects or store people in a
+ * compact form and rebuild Person views on demand. Such views are attached to their row (see
+ * {@link Person#die(Date)}), so changes made through them reach the roster.
+ *
+ * @author Sabrina Nunes
+ */
+public interface Roster
+        extends Iterable<Person>
+{
+    /**
+     * Appends a person.
+     *
+     * @param p the person to add
+     *
+     * @return the row of the person
+     */
+    public int add(Person p);
+
+    /**
+     * Appends a batch of people, giving them consecutive rows in batch order. Implementations make room for the whole
+     * batch at once rather than growing person by person.
+     *
+     * @param batch the people to add
+     *
+     * @return the row of the first person in the batch
+     */
+    public default int addAll(final List<? extends Person> batch)
+    {
+        int first;
+        first = size();
+
+        for(Person p : batch)
+        {
+            add(p);
+        }
+        return first;
+    }
+
+    /**
+     * Returns the person at the specified row.
+     *
+     * @param row the row
+     *
+     * @return the person
+     * @throws IndexOutOfBoundsException if the row is not below size()
+     */
+    public Person get(int row);
+
+    /**
+     * Returns the number of people.
+     *
+     * @return the size
+     */
+    public int size();
+
+    /**
+     * Records that the person at the specified row died on the specified day, stamping the change with the next
+     * change sequence number. {@link Person#die(Date)} on a view of a record-storing roster comes here, so the death
+     * is stored rather than lost with the view. A roster that stores Person objects records it on the object.
+     *
+     * @param row      the row
+     * @param epochDay the day of death, as a number of days since 1970-01-01
+     *
+     * @throws IndexOutOfBoundsException if the row is not below size()
+     */
+    public default void recordDeath(final int row, final int epochDay)
+    {
+        get(row).die(Date.ofEpochDay(epochDay));
+    }
+
+    /**
+     * Returns an immutable view of the people on the roster now, in constant time. People added later are not part
+     * of it. A roster that is not safe for concurrent use should return a copy instead, so that the snapshot can be
+     * read on another thread while the roster changes.
+     *
+     * @return the snapshot
+     */
+    public default Roster snapshot()
+    {
+        return new RosterSnapshot(this, size());
+    }
+
+    /**
+     * Fills the specified array with the age in the specified year of the person at each row, for the rows below the
+     * array's length. See {@link Person#getAgeInYear(int)}.
+     *
+     * @param year the year
+     * @param ages the array to fill, no longer than size(); NO_AGE marks people not alive in that year
+     */
+    public default void agesInYear(final int year, final int[] ages)
+    {
+        for(int row = 0; row < ages.length; row++)
+        {
+            ages[row] = get(row).getAgeInYear(year);
+        }
+    }
+
+    /**
+     * Returns the number of living people born before the specified day.
+     *
+     * @param epochDay the day, as a number of days since 1970-01-01
+     *
+     * @return the count
+     */
+    public default int countAliveBornBefore(final int epochDay)
+    {
+        int count;
+        count = 0;
+
+        for(Person p : this)
+        {
+            if(p.isAlive() && p.getDateOfBirth().getEpochDay() < epochDay)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+}
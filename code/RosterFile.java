@@ -0,0 +1,896 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A versioned binary snapshot of a roster, written with a {@link FileChannel} and read back through memory-mapped
+ * buffers. All numbers are little-endian. The file has four sections:
+ * <ul>
+ *     <li>a header of HEADER_BYTES bytes: MAGIC, VERSION, the number of records, names, specialties and indexed
+ *     students, and the byte offsets of the other sections;</li>
+ *     <li>the person records, in row order, each RECORD_BYTES bytes in the {@link PersonRecord} layout;</li>
+ *     <li>a string table of names, then one of specialties: each string is its UTF-8 length as an int followed by
+ *     its bytes. Record name ids and teacher payloads are positions in these tables;</li>
+ *     <li>an optional student number index: the encoded number and row of every student, so a loader does not have
+ *     to scan the records for them.</li>
+ * </ul>
+ * Records come first so the file can be written in one pass; the header is filled in last. Opening a file maps it
+ * and checks the header; reading the roster interns each distinct string once and then copies records field by field
+ * into an {@link OffHeapRoster}, translating file ids to dictionary ids. The rows can also be grouped by name or
+ * specialty file id, so a loader fills its indexes with one entry per distinct string. No Person objects are made.
+ * <p>
+ * A RosterFile is meant to be used by one thread.
+ *
+ * @author Sabrina Nunes
+ */
+public class RosterFile
+        implements Closeable
+{
+    private final FileChannel channel;
+    private final int         records;
+    private final int         names;
+    private final int         specialties;
+    private final int         students; // -1 if the file has no student index
+    private final long        namesOffset;
+    private final long        specialtiesOffset;
+    private final long        indexOffset;
+    private       String[]    nameTable; // null until first read
+    private       String[]    specialtyTable; // null until first read
+    private       int[]       firstIds; // file ids by row, null until the records are first scanned
+    private       int[]       lastIds;
+    private       int[]       specialtyIds; // UNGROUPED for rows that are not teachers
+    private       int         studentRecords; // records of students, counted when the records are scanned
+
+    private final static int       MAGIC; // "RSTR"
+    private final static int       VERSION;
+    private final static int       HEADER_BYTES;
+    private final static int       INDEX_ENTRY_BYTES; // an encoded student number and a row
+    private final static int       NO_INDEX;
+    private final static int       UNGROUPED; // the file id of a row left out of a grouping
+    private final static int       WINDOW_RECORDS; // records mapped at a time while loading
+    private final static int       BUFFER_BYTES;
+    private final static ByteOrder ORDER;
+    private final static String    NOT_A_SNAPSHOT;
+    private final static String    UNSUPPORTED_VERSION;
+    private final static String    CORRUPT;
+    private final static String    TEMP_SUFFIX;
+
+    static
+    {
+        MAGIC               = 0x52545352;
+        VERSION             = 1;
+        HEADER_BYTES        = 64;
+        INDEX_ENTRY_BYTES   = Long.BYTES + Integer.BYTES;
+        NO_INDEX            = -1;
+        UNGROUPED           = -1;
+        WINDOW_RECORDS      = 1 << 20;
+        BUFFER_BYTES        = 1 << 18;
+        ORDER               = ByteOrder.LITTLE_ENDIAN;
+        NOT_A_SNAPSHOT      = "not a roster snapshot";
+        UNSUPPORTED_VERSION = "unsupported roster snapshot version";
+        CORRUPT             = "corrupt roster snapshot";
+        TEMP_SUFFIX         = ".tmp";
+    }
+
+    /**
+     * Constructs a RosterFile from an open channel and its checked header.
+     *
+     * @param channel the channel
+     * @param header  the header
+     */
+    private RosterFile(final FileChannel channel, final ByteBuffer header)
+    {
+        this.channel      = channel;
+        records           = header.getInt(8);
+        names             = header.getInt(12);
+        specialties       = header.getInt(16);
+        students          = header.getInt(20);
+        namesOffset       = header.getLong(24);
+        specialtiesOffset = header.getLong(32);
+        indexOffset       = header.getLong(40);
+        nameTable         = null;
+        specialtyTable    = null;
+        firstIds          = null;
+        lastIds           = null;
+        specialtyIds      = null;
+        studentRecords    = 0;
+    }
+
+    /**
+     * Opens a roster snapshot and checks its header: the counts must not be negative and the sections must lie in
+     * order within the file.
+     *
+     * @param path the file
+     *
+     * @return the open file, to be closed by the caller
+     * @throws IOException if the file cannot be read, is not a roster snapshot of a supported version, or its header
+     *                     is corrupt, e.g. because the file was truncated
+     */
+    public static RosterFile open(final Path path)
+            throws IOException
+    {
+        FileChannel channel;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try
+        {
+            ByteBuffer header;
+
+            if(channel.size() < HEADER_BYTES)
+            {
+                throw new IOException(NOT_A_SNAPSHOT);
+            }
+            header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ORDER);
+
+            if(header.getInt(0) != MAGIC)
+            {
+                throw new IOException(NOT_A_SNAPSHOT);
+            }
+            if(header.getInt(4) != VERSION)
+            {
+                throw new IOException(UNSUPPORTED_VERSION);
+            }
+            if(header.getInt(8) < 0 || header.getInt(12) < 0 || header.getInt(16) < 0 ||
+               header.getInt(20) < NO_INDEX || header.getInt(20) > header.getInt(8) ||
+               (long) header.getInt(8) * PersonRecord.RECORD_BYTES + HEADER_BYTES > header.getLong(24) ||
+               header.getLong(24) > header.getLong(32) || header.getLong(32) > header.getLong(40) ||
+               header.getLong(40) > channel.size())
+            {
+                throw new IOException(CORRUPT);
+            }
+            return new RosterFile(channel, header);
+        }
+        catch(final IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of people in the snapshot.
+     *
+     * @return the number of records
+     */
+    public int size()
+    {
+        return records;
+    }
+
+    /**
+     * Returns whether the snapshot has a student number index.
+     *
+     * @return true if it does
+     */
+    public boolean hasStudentIndex()
+    {
+        return students != NO_INDEX;
+    }
+
+    /**
+     * Returns the number of entries in the student number index.
+     *
+     * @return the number of students, or -1 if the snapshot has no student number index
+     */
+    public int getStudentCount()
+    {
+        return students;
+    }
+
+    /**
+     * Loads the people in the snapshot into a new off-heap roster, in row order. The name and specialty file ids of
+     * every row are kept while the file is open, so grouping rows afterwards does not read the records again.
+     *
+     * @return the roster
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public OffHeapRoster readRoster()
+            throws IOException
+    {
+        OffHeapRoster roster;
+        roster = new OffHeapRoster();
+
+        scan(roster);
+        return roster;
+    }
+
+    /**
+     * Returns the rows of the snapshot grouped by first name: group n holds the rows whose first name has file id n.
+     *
+     * @return the groups, one per name in the snapshot, some of them empty
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public RowGroups groupByFirstName()
+            throws IOException
+    {
+        if(firstIds == null)
+        {
+            scan(null);
+        }
+        return group(firstIds, nameTable());
+    }
+
+    /**
+     * Returns the rows of the snapshot grouped by last name: group n holds the rows whose last name has file id n.
+     *
+     * @return the groups, one per name in the snapshot, some of them empty
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public RowGroups groupByLastName()
+            throws IOException
+    {
+        if(lastIds == null)
+        {
+            scan(null);
+        }
+        return group(lastIds, nameTable());
+    }
+
+    /**
+     * Returns the rows of the teachers in the snapshot grouped by specialty: group n holds the rows of the teachers
+     * whose specialty has file id n.
+     *
+     * @return the groups, one per specialty in the snapshot
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public RowGroups groupBySpecialty()
+            throws IOException
+    {
+        if(specialtyIds == null)
+        {
+            scan(null);
+        }
+        return group(specialtyIds, specialtyTable());
+    }
+
+    /**
+     * Reads the student number index into the specified arrays.
+     *
+     * @param keys the array to fill with encoded student numbers, at least getStudentCount() long
+     * @param rows the array to fill with the matching rows, at least getStudentCount() long
+     *
+     * @throws IOException if the file cannot be read, has no student number index, or the index is corrupt: it runs
+     *                     past the end of the file, has an entry that is not the number and row of a student record,
+     *                     or has fewer or more entries than there are students. Entries that repeat a number are
+     *                     left for the caller to find, e.g. with {@link StudentNumberIndex#putAllIfAbsent}
+     */
+    public void readStudentIndex(final long[] keys, final int[] rows)
+            throws IOException
+    {
+        ByteBuffer   index;
+        ByteBuffer[] windows; // mapped on first use, as entries are in number order rather than row order
+
+        if(!hasStudentIndex() || indexOffset + (long) students * INDEX_ENTRY_BYTES > channel.size())
+        {
+            throw new IOException(CORRUPT);
+        }
+        if(firstIds == null)
+        {
+            scan(null);
+        }
+        if(students != studentRecords)
+        {
+            throw new IOException(CORRUPT);
+        }
+        index   = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) students * INDEX_ENTRY_BYTES)
+                         .order(ORDER);
+        windows = new ByteBuffer[(records + WINDOW_RECORDS - 1) / WINDOW_RECORDS];
+
+        for(int i = 0; i < students; i++)
+        {
+            int window;
+            int offset;
+
+            keys[i] = index.getLong(i * INDEX_ENTRY_BYTES);
+            rows[i] = index.getInt(i * INDEX_ENTRY_BYTES + Long.BYTES);
+
+            if(rows[i] < 0 || rows[i] >= records || keys[i] < 0)
+            {
+                throw new IOException(CORRUPT);
+            }
+
+            window = rows[i] / WINDOW_RECORDS;
+            offset = rows[i] % WINDOW_RECORDS * PersonRecord.RECORD_BYTES;
+            if(windows[window] == null)
+            {
+                windows[window] = mapRecords(window * WINDOW_RECORDS,
+                                             Math.min(WINDOW_RECORDS, records - window * WINDOW_RECORDS));
+            }
+            if(windows[window].get(offset + PersonRecord.TYPE_OFFSET) != PersonRecord.TYPE_STUDENT ||
+               windows[window].getLong(offset + PersonRecord.PAYLOAD_OFFSET) != keys[i])
+            {
+                throw new IOException(CORRUPT);
+            }
+        }
+    }
+
+    /**
+     * Scans the records for students, for snapshots without a student number index.
+     *
+     * @param keys the array to fill with encoded student numbers, at least size() long
+     * @param rows the array to fill with the matching rows, at least size() long
+     *
+     * @return the number of students found
+     * @throws IOException if the file cannot be read or a student number is invalid
+     */
+    public int readStudentRecords(final long[] keys, final int[] rows)
+            throws IOException
+    {
+        int found;
+        found = 0;
+
+        for(int first = 0; first < records; first += WINDOW_RECORDS)
+        {
+            ByteBuffer window;
+            int        count;
+
+            count  = Math.min(WINDOW_RECORDS, records - first);
+            window = mapRecords(first, count);
+
+            for(int i = 0; i < count; i++)
+            {
+                int offset;
+                offset = i * PersonRecord.RECORD_BYTES;
+
+                if(window.get(offset + PersonRecord.TYPE_OFFSET) == PersonRecord.TYPE_STUDENT)
+                {
+                    keys[found] = window.getLong(offset + PersonRecord.PAYLOAD_OFFSET);
+                    rows[found] = first + i;
+
+                    if(keys[found] < 0)
+                    {
+                        throw new IOException(CORRUPT);
+                    }
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close()
+            throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Returns the name table, reading it on first use.
+     *
+     * @return the names, by file id
+     * @throws IOException if the file cannot be read or the table is corrupt
+     */
+    private String[] nameTable()
+            throws IOException
+    {
+        if(nameTable == null)
+        {
+            nameTable = readStrings(namesOffset, specialtiesOffset, names);
+        }
+        return nameTable;
+    }
+
+    /**
+     * Returns the specialty table, reading it on first use.
+     *
+     * @return the specialties, by file id
+     * @throws IOException if the file cannot be read or the table is corrupt
+     */
+    private String[] specialtyTable()
+            throws IOException
+    {
+        if(specialtyTable == null)
+        {
+            specialtyTable = readStrings(specialtiesOffset, indexOffset, specialties);
+        }
+        return specialtyTable;
+    }
+
+    /**
+     * Interns the strings of a string table.
+     *
+     * @param strings    the strings, by file id
+     * @param dictionary the dictionary to intern them in
+     *
+     * @return the dictionary id of each string, by file id
+     */
+    private static int[] intern(final String[] strings, final NameDictionary dictionary)
+    {
+        int[] ids;
+        ids = new int[strings.length];
+
+        for(int i = 0; i < strings.length; i++)
+        {
+            ids[i] = dictionary.intern(strings[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Maps a window of consecutive records.
+     *
+     * @param first the row of the first record
+     * @param count the number of records
+     *
+     * @return the window, in the file's byte order
+     * @throws IOException if the file cannot be mapped
+     */
+    private ByteBuffer mapRecords(final int first, final int count)
+            throws IOException
+    {
+        return channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + (long) first * PersonRecord.RECORD_BYTES,
+                           (long) count * PersonRecord.RECORD_BYTES).order(ORDER);
+    }
+
+    /**
+     * Reads every record, checking it and keeping its name and specialty file ids, and copies it into the specified
+     * roster, if any, translating file ids to dictionary ids.
+     *
+     * @param roster the roster to load into, or null to keep only the file ids
+     *
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    private void scan(final OffHeapRoster roster)
+            throws IOException
+    {
+        int[] nameIds;
+        int[] specialtyDictionaryIds;
+
+        nameIds                = intern(nameTable(), Name.getDictionary());
+        specialtyDictionaryIds = intern(specialtyTable(), PersonRecord.getSpecialties());
+        firstIds               = new int[records];
+        lastIds                = new int[records];
+        specialtyIds           = new int[records];
+        studentRecords         = 0;
+
+        for(int first = 0; first < records; first += WINDOW_RECORDS)
+        {
+            ByteBuffer window;
+            int        count;
+
+            count  = Math.min(WINDOW_RECORDS, records - first);
+            window = mapRecords(first, count);
+
+            for(int i = 0; i < count; i++)
+            {
+                int  offset;
+                int  row;
+                byte type;
+                long payload;
+                int  firstId;
+                int  lastId;
+
+                offset  = i * PersonRecord.RECORD_BYTES;
+                row     = first + i;
+                type    = window.get(offset + PersonRecord.TYPE_OFFSET);
+                payload = window.getLong(offset + PersonRecord.PAYLOAD_OFFSET);
+
+                firstIds[row]     = window.getInt(offset + PersonRecord.FIRST_ID_OFFSET);
+                lastIds[row]      = window.getInt(offset + PersonRecord.LAST_ID_OFFSET);
+                specialtyIds[row] = UNGROUPED;
+                firstId           = (int) translate(nameIds, firstIds[row]);
+                lastId            = (int) translate(nameIds, lastIds[row]);
+
+                if(type == PersonRecord.TYPE_STUDENT)
+                {
+                    studentRecords++;
+                }
+                else if(type == PersonRecord.TYPE_TEACHER)
+                {
+                    specialtyIds[row] = (int) payload; // checked by translate below
+                    payload           = translate(specialtyDictionaryIds, payload);
+                }
+                else if(type != PersonRecord.TYPE_PERSON)
+                {
+                    throw new IOException(CORRUPT);
+                }
+
+                if(roster != null)
+                {
+                    roster.addRecord(type, window.getInt(offset + PersonRecord.BORN_OFFSET),
+                                     window.getInt(offset + PersonRecord.DIED_OFFSET), firstId, lastId, payload);
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the rows by file id with a counting sort: one pass counts the rows of each id, and a second drops each
+     * row into its group, so rows come out ascending within a group.
+     *
+     * @param ids     the file id of each row, checked against the table, or UNGROUPED to leave the row out
+     * @param strings the string of each file id
+     *
+     * @return the groups
+     */
+    private static RowGroups group(final int[] ids, final String[] strings)
+    {
+        int[] starts;
+        int[] next;
+        int[] rows;
+
+        starts = new int[strings.length + 1];
+        for(int id : ids)
+        {
+            if(id != UNGROUPED)
+            {
+                starts[id + 1]++;
+            }
+        }
+        for(int i = 1; i < starts.length; i++)
+        {
+            starts[i] += starts[i - 1];
+        }
+
+        next = Arrays.copyOf(starts, strings.length);
+        rows = new int[starts[strings.length]];
+        for(int row = 0; row < ids.length; row++)
+        {
+            if(ids[row] != UNGROUPED)
+            {
+                rows[next[ids[row]]++] = row;
+            }
+        }
+        return new RowGroups(strings, starts, rows);
+    }
+
+    /**
+     * Decodes the strings of a string table.
+     *
+     * @param start the offset of the table
+     * @param end   the offset just past the table
+     * @param count the number of strings
+     *
+     * @return the strings, by their position in the table
+     * @throws IOException if the file cannot be read or the table is corrupt
+     */
+    private String[] readStrings(final long start, final long end, final int count)
+            throws IOException
+    {
+        MappedByteBuffer table;
+        String[]         strings;
+        byte[]           bytes;
+
+        table   = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        table.order(ORDER);
+        strings = new String[count];
+        bytes   = new byte[0];
+
+        for(int i = 0; i < count; i++)
+        {
+            int length;
+
+            if(table.remaining() < Integer.BYTES || (length = table.getInt()) < 0 || length > table.remaining())
+            {
+                throw new IOException(CORRUPT);
+            }
+            if(length > bytes.length)
+            {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            table.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * Returns the dictionary id of the specified file id.
+     *
+     * @param ids    the dictionary id of each file id
+     * @param fileId the id stored in the file
+     *
+     * @return the dictionary id
+     * @throws IOException if the file id is out of range
+     */
+    private static long translate(final int[] ids, final long fileId)
+            throws IOException
+    {
+        if(fileId < 0 || fileId >= ids.length)
+        {
+            throw new IOException(CORRUPT);
+        }
+        return ids[(int) fileId];
+    }
+
+    /**
+     * Writes a snapshot of the specified roster to the specified file, replacing it atomically.
+     *
+     * @param roster       the roster, typically a snapshot
+     * @param path         the file
+     * @param studentIndex whether to include the student number index
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(final Roster roster, final Path path, final boolean studentIndex)
+            throws IOException
+    {
+        Path temp;
+        temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            new Writer(channel, roster, studentIndex).write();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Writes one snapshot in a single pass, assigning file ids to names and specialties as they first appear. */
+    private static class Writer
+    {
+        private final FileChannel channel;
+        private final Roster      roster;
+        private final boolean     studentIndex;
+        private final ByteBuffer  buffer;
+        private final Strings     names;
+        private final Strings     specialties;
+        private       long[]      studentKeys;
+        private       int[]       studentRows;
+        private       int         students;
+
+        /**
+         * Constructs a Writer.
+         *
+         * @param channel      the channel of the new file
+         * @param roster       the roster
+         * @param studentIndex whether to include the student number index
+         */
+        Writer(final FileChannel channel, final Roster roster, final boolean studentIndex)
+        {
+            this.channel      = channel;
+            this.roster       = roster;
+            this.studentIndex = studentIndex;
+            this.buffer       = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ORDER);
+            this.names        = new Strings(Name.getDictionary());
+            this.specialties  = new Strings(PersonRecord.getSpecialties());
+            this.studentKeys  = new long[16];
+            this.studentRows  = new int[16];
+            this.students     = 0;
+        }
+
+        /**
+         * Writes the records, the string tables, the index, and finally the header.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        void write()
+                throws IOException
+        {
+            long namesOffset;
+            long specialtiesOffset;
+            long indexOffset;
+            int  size;
+
+            size = roster.size();
+            channel.position(HEADER_BYTES);
+
+            for(int row = 0; row < size; row++)
+            {
+                Person p;
+                byte   type;
+                long   payload;
+
+                p       = roster.get(row);
+                type    = PersonRecord.typeOf(p);
+                payload = PersonRecord.payloadOf(p);
+
+                if(type == PersonRecord.TYPE_TEACHER)
+                {
+                    payload = specialties.fileIdOf((int) payload);
+                }
+                else if(type == PersonRecord.TYPE_STUDENT)
+                {
+                    addStudent(payload, row);
+                }
+
+                ensureRoom(PersonRecord.RECORD_BYTES);
+                PersonRecord.write(buffer, buffer.position(), type, p.getDateOfBirth().getEpochDay(),
+                                   PersonRecord.deathOf(p), names.fileIdOf(p.getName().getFirstId()),
+                                   names.fileIdOf(p.getName().getLastId()), payload);
+                buffer.position(buffer.position() + PersonRecord.RECORD_BYTES);
+            }
+
+            namesOffset = position();
+            names.writeTable(this);
+            specialtiesOffset = position();
+            specialties.writeTable(this);
+            indexOffset = position();
+
+            if(studentIndex)
+            {
+                for(int i = 0; i < students; i++)
+                {
+                    ensureRoom(INDEX_ENTRY_BYTES);
+                    buffer.putLong(studentKeys[i]).putInt(studentRows[i]);
+                }
+            }
+            drain();
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(names.size()).putInt(specialties.size())
+                  .putInt(studentIndex ? students : NO_INDEX).putLong(namesOffset).putLong(specialtiesOffset)
+                  .putLong(indexOffset);
+            while(buffer.position() < HEADER_BYTES)
+            {
+                buffer.put((byte) 0);
+            }
+            buffer.flip();
+            channel.write(buffer, 0);
+        }
+
+        /**
+         * Remembers a student for the index.
+         *
+         * @param key the encoded student number
+         * @param row the row
+         */
+        private void addStudent(final long key, final int row)
+        {
+            if(!studentIndex)
+            {
+                return;
+            }
+            if(students == studentKeys.length)
+            {
+                studentKeys = Arrays.copyOf(studentKeys, students * 2);
+                studentRows = Arrays.copyOf(studentRows, students * 2);
+            }
+            studentKeys[students] = key;
+            studentRows[students] = row;
+            students++;
+        }
+
+        /**
+         * Appends a string to the file as its UTF-8 length and bytes.
+         *
+         * @param string the string
+         *
+         * @throws IOException if the file cannot be written
+         */
+        void writeString(final String string)
+                throws IOException
+        {
+            byte[] bytes;
+            bytes = string.getBytes(StandardCharsets.UTF_8);
+
+            ensureRoom(Integer.BYTES);
+            buffer.putInt(bytes.length);
+
+            for(int offset = 0; offset < bytes.length; )
+            {
+                int length;
+
+                ensureRoom(1);
+                length = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Returns the file offset of the next byte to be written.
+         *
+         * @return the offset
+         * @throws IOException if the channel position cannot be read
+         */
+        private long position()
+                throws IOException
+        {
+            return channel.position() + buffer.position();
+        }
+
+        /**
+         * Drains the buffer if it has fewer than the specified number of bytes free.
+         *
+         * @param bytes the number of bytes about to be written
+         *
+         * @throws IOException if the file cannot be written
+         */
+        private void ensureRoom(final int bytes)
+                throws IOException
+        {
+            if(buffer.remaining() < bytes)
+            {
+                drain();
+            }
+        }
+
+        /**
+         * Writes the buffer to the channel and empties it.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        private void drain()
+                throws IOException
+        {
+            buffer.flip();
+            while(buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /** The file ids given to the strings of one dictionary, in order of first appearance. */
+    private static class Strings
+    {
+        private final NameDictionary dictionary;
+        private       int[]          fileIds; // by dictionary id; 0 for not yet seen, else file id + 1
+        private final IntList        dictionaryIds; // by file id
+
+        /**
+         * Constructs an empty Strings.
+         *
+         * @param dictionary the dictionary that the ids come from
+         */
+        Strings(final NameDictionary dictionary)
+        {
+            this.dictionary    = dictionary;
+            this.fileIds       = new int[16];
+            this.dictionaryIds = new IntList();
+        }
+
+        /**
+         * Returns the file id of the string with the specified dictionary id, giving it the next file id if it is new.
+         *
+         * @param id the dictionary id
+         *
+         * @return the file id
+         */
+        int fileIdOf(final int id)
+        {
+            if(id >= fileIds.length)
+            {
+                fileIds = Arrays.copyOf(fileIds, Math.max(id + 1, fileIds.length * 2));
+            }
+            if(fileIds[id] == 0)
+            {
+                dictionaryIds.add(id);
+                fileIds[id] = dictionaryIds.size();
+            }
+            return fileIds[id] - 1;
+        }
+
+        /**
+         * Returns the number of strings given file ids.
+         *
+         * @return the count
+         */
+        int size()
+        {
+            return dictionaryIds.size();
+        }
+
+        /**
+         * Writes the strings in file id order.
+         *
+         * @param writer the writer of the file
+         *
+         * @throws IOException if the file cannot be written
+         */
+        void writeTable(final Writer writer)
+                throws IOException
+        {
+            for(int i = 0; i < dictionaryIds.size(); i++)
+            {
+                writer.writeString(dictionary.resolve(dictionaryIds.get(i)));
+            }
+        }
+    }
+}
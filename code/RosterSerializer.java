@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes people to a file or channel as UTF-8 text, one record per person in a pluggable {@link RecordFormat}. Each
+ * record is rendered into a reused builder and encoded by a plain array loop into a reused staging array. When that
+ * fills up it is copied in one bulk put into a reused direct byte buffer, which the channel writes without a further
+ * copy. Nothing is allocated per person and the channel sees only large writes.
+ * <p>
+ * A serializer keeps its buffers between calls, so a nightly export of many schools can reuse one serializer. It is
+ * not safe for concurrent use; give each thread its own.
+ *
+ * @author Sabrina Nunes
+ */
+public class RosterSerializer
+{
+    private final RecordFormat  format;
+    private final StringBuilder record;
+    private final ByteBuffer    bytes;
+    private       byte[]        staged;
+    private       int           filled;
+
+    private final static int  BUFFER_BYTES;
+    private final static int  MAX_BYTES_PER_CHAR; // generous: one char encodes to at most 3 bytes, a pair to 4
+    private final static byte REPLACEMENT; // written for an unpaired surrogate, as String.getBytes does
+
+    static
+    {
+        BUFFER_BYTES       = 1 << 18;
+        MAX_BYTES_PER_CHAR = 4;
+        REPLACEMENT        = '?';
+    }
+
+    /** Constructs a RosterSerializer that writes the format of {@link School#saveDetails()}. */
+    public RosterSerializer()
+    {
+        this(new DetailsFormat());
+    }
+
+    /**
+     * Constructs a RosterSerializer that writes the specified format.
+     *
+     * @param format the record format
+     */
+    public RosterSerializer(final RecordFormat format)
+    {
+        this.format = format;
+        this.record = new StringBuilder();
+        this.bytes  = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        this.staged = new byte[BUFFER_BYTES];
+        this.filled = 0;
+    }
+
+    /**
+     * Writes the specified people to the file at the specified path, replacing its contents.
+     *
+     * @param people the people, typically a roster snapshot
+     * @param path   the file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void write(final Iterable<? extends Person> people, final Path path)
+            throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            write(people, channel);
+        }
+    }
+
+    /**
+     * Writes the specified people to the specified channel. The channel is left open.
+     *
+     * @param people  the people, typically a roster snapshot
+     * @param channel the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void write(final Iterable<? extends Person> people, final WritableByteChannel channel)
+            throws IOException
+    {
+        filled = 0;
+
+        for(Person p : people)
+        {
+            record.setLength(0);
+            format.appendRecord(p, record);
+            encode(record, channel);
+        }
+        drain(channel);
+    }
+
+    /**
+     * Encodes the specified text as UTF-8 into the staging array, first draining the array to the channel if the text
+     * might not fit.
+     *
+     * @param text    the text
+     * @param channel the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void encode(final CharSequence text, final WritableByteChannel channel)
+            throws IOException
+    {
+        if(filled + maxEncodedLength(text) > staged.length)
+        {
+            drain(channel);
+            if(maxEncodedLength(text) > staged.length)
+            {
+                staged = new byte[maxEncodedLength(text)];
+            }
+        }
+        filled = encode(text, staged, filled);
+    }
+
+    /**
+     * Returns the number of bytes to have free before encoding the specified text with
+     * {@link #encode(CharSequence, byte[], int)}.
+     *
+     * @param text the text
+     *
+     * @return an upper bound on its UTF-8 length
+     */
+    static int maxEncodedLength(final CharSequence text)
+    {
+        return text.length() * MAX_BYTES_PER_CHAR;
+    }
+
+    /**
+     * Encodes the specified text as UTF-8 into the specified array, which must have room for
+     * {@link #maxEncodedLength(CharSequence)} bytes. An unpaired surrogate is written as REPLACEMENT.
+     *
+     * @param text     the text
+     * @param out      the array
+     * @param position the index of the first byte to write
+     *
+     * @return the index just past the last byte written
+     */
+    static int encode(final CharSequence text, final byte[] out, final int position)
+    {
+        int next;
+        next = position;
+
+        for(int i = 0; i < text.length(); i++)
+        {
+            char c;
+            c = text.charAt(i);
+
+            if(c < 0x80)
+            {
+                out[next++] = (byte) c;
+            }
+            else if(c < 0x800)
+            {
+                out[next++] = (byte) (0xC0 | c >> 6);
+                out[next++] = (byte) (0x80 | c & 0x3F);
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < text.length() &&
+                    Character.isLowSurrogate(text.charAt(i + 1)))
+            {
+                int codePoint;
+                codePoint = Character.toCodePoint(c, text.charAt(++i));
+
+                out[next++] = (byte) (0xF0 | codePoint >> 18);
+                out[next++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                out[next++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                out[next++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+            else if(Character.isSurrogate(c))
+            {
+                out[next++] = REPLACEMENT;
+            }
+            else
+            {
+                out[next++] = (byte) (0xE0 | c >> 12);
+                out[next++] = (byte) (0x80 | c >> 6 & 0x3F);
+                out[next++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Moves the staged bytes into the direct buffer, writes them all to the channel, and empties both.
+     *
+     * @param channel the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void drain(final WritableByteChannel channel)
+            throws IOException
+    {
+        int offset;
+        offset = 0;
+
+        while(offset < filled)
+        {
+            int length;
+            length = Math.min(filled - offset, bytes.capacity());
+
+            bytes.clear();
+            bytes.put(staged, offset, length);
+            bytes.flip();
+            while(bytes.hasRemaining())
+            {
+                channel.write(bytes);
+            }
+            offset += length;
+        }
+        filled = 0;
+    }
+}
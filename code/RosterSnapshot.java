@@ -0,0 +1,156 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable, point-in-time view of a roster: the rows that existed when the snapshot was taken. Because rosters
+ * only ever append, a snapshot is just the source roster and its size at that moment, so taking one is constant
+ * time and copies nothing. People registered afterwards are not part of the snapshot, and reading it never blocks
+ * registration.
+ * <p>
+ * The snapshot fixes which people are on the roster, not their state: a later call to {@link Person#die(Date)} on a
+ * registered object is seen by rosters that keep Person objects. Reading a snapshot while the school is registering
+ * people is safe when the source roster is safe for concurrent use, as {@link ChunkedRoster} is.
+ *
+ * @author Sabrina Nunes
+ */
+public class RosterSnapshot
+        implements Roster
+{
+    private final Roster source;
+    private final int    size;
+
+    private final static String READ_ONLY;
+
+    static
+    {
+        READ_ONLY = "a roster snapshot cannot be changed";
+    }
+
+    /**
+     * Constructs a RosterSnapshot of the first rows of the specified roster.
+     *
+     * @param source the roster
+     * @param size   the number of rows in the snapshot; at most the size of the roster
+     */
+    public RosterSnapshot(final Roster source, final int size)
+    {
+        this.source = source;
+        this.size   = size;
+    }
+
+    /**
+     * Always throws, since a snapshot cannot be changed.
+     *
+     * @param p the person to add
+     *
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int add(final Person p)
+    {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    /**
+     * Returns the person at the specified row.
+     *
+     * @param row the row
+     *
+     * @return the person
+     */
+    @Override
+    public Person get(final int row)
+    {
+        if(row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return source.get(row);
+    }
+
+    /**
+     * Records a death on the source roster. A snapshot fixes which people it holds, not their state, so deaths are
+     * recorded as they are for a view of the roster itself.
+     *
+     * @param row      the row
+     * @param epochDay the day of death, as a number of days since 1970-01-01
+     */
+    @Override
+    public void recordDeath(final int row, final int epochDay)
+    {
+        if(row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException(row);
+        }
+        source.recordDeath(row, epochDay);
+    }
+
+    /**
+     * Returns the number of people in the snapshot.
+     *
+     * @return the size
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Fills the specified array with ages in the specified year, using the source roster's own scan.
+     *
+     * @param year the year
+     * @param ages the array to fill, no longer than size()
+     */
+    @Override
+    public void agesInYear(final int year, final int[] ages)
+    {
+        if(ages.length > size)
+        {
+            throw new IndexOutOfBoundsException(ages.length);
+        }
+        source.agesInYear(year, ages);
+    }
+
+    /**
+     * Returns this snapshot, which is already immutable.
+     *
+     * @return this snapshot
+     */
+    @Override
+    public Roster snapshot()
+    {
+        return this;
+    }
+
+    /**
+     * Returns an iterator over the people in the snapshot in row order.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Person> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < size;
+            }
+
+            @Override
+            public Person next()
+            {
+                if(next >= size)
+                {
+                    throw new NoSuchElementException();
+                }
+                return source.get(next++);
+            }
+        };
+    }
+}
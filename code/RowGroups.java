@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * The rows of a roster grouped by the string they hold in one field, such as the first name: group n holds, in
+ * ascending order, the rows of the people whose field is string n. {@link RosterFile} builds one straight from the
+ * ids in a snapshot, so indexes can be filled with one entry per distinct string instead of one per person.
+ *
+ * @author Sabrina Nunes
+ */
+public class RowGroups
+{
+    private final String[] strings;
+    private final int[]    starts; // group n is rows[starts[n]] up to rows[starts[n + 1]]
+    private final int[]    rows;
+
+    /**
+     * Constructs a RowGroups. The arrays are owned by the new object from now on.
+     *
+     * @param strings the string of each group
+     * @param starts  the position in rows of each group's first row, followed by the number of rows
+     * @param rows    the rows, group after group
+     */
+    RowGroups(final String[] strings, final int[] starts, final int[] rows)
+    {
+        this.strings = strings;
+        this.starts  = starts;
+        this.rows    = rows;
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return the number of groups, including empty ones
+     */
+    public int size()
+    {
+        return strings.length;
+    }
+
+    /**
+     * Returns the string shared by the rows of the specified group.
+     *
+     * @param group the group
+     *
+     * @return the string
+     */
+    public String getString(final int group)
+    {
+        return strings[group];
+    }
+
+    /**
+     * Returns the rows of the specified group.
+     *
+     * @param group the group
+     *
+     * @return a copy of the rows, in ascending order
+     */
+    public int[] getRows(final int group)
+    {
+        return Arrays.copyOfRange(rows, starts[group], starts[group + 1]);
+    }
+
+    /**
+     * Returns the position in {@link #rows()} of the first row of the specified group.
+     *
+     * @param group the group
+     *
+     * @return the position
+     */
+    int start(final int group)
+    {
+        return starts[group];
+    }
+
+    /**
+     * Returns the position in {@link #rows()} just past the last row of the specified group.
+     *
+     * @param group the group
+     *
+     * @return the position
+     */
+    int end(final int group)
+    {
+        return starts[group + 1];
+    }
+
+    /**
+     * Returns the rows of every group, group after group, without copying them.
+     *
+     * @return the rows, not to be changed
+     */
+    int[] rows()
+    {
+        return rows;
+    }
+}
@@ -1,28 +1,75 @@
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.io.FileWriter;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Represents a school that maintains a list of people. Provides methods to add people to the school and save their
- * details to a file.
+ * Represents a school that maintains a list of people, stored in a {@link Roster}. Provides methods to add people to
+ * the school and save their details to a file. People can be looked up by the start of their first or last name
+ * through indexes kept up to date on registration. Optionally, registrations are checked for people who may already
+ * be on the roster under a slightly different spelling. Students can be found by student number and teachers by
+ * specialty.
+ * <p>
+ * The indexes are safe for concurrent use, so registration is thread-safe whenever the roster is, as with
+ * {@link ChunkedRoster}.
  *
  * @author Sabrina Nunes
  */
 public class School
 {
-    private final List<Person> people;
+    private final Roster                  people;
+    private final NameIndex               firstNames;
+    private final NameIndex               lastNames;
+    private final StudentNumberIndex      studentNumbers;
+    private final SpecialtyIndex          specialties;
+    private final List<DuplicateMatch>    suspectedDuplicates;
+    private volatile DuplicateDetector    duplicates;
+    private final IncrementalExporter     details;
+    private final BackgroundSaver<Roster> backgroundSaves;
 
     private final static int    CURRENT_YEAR;
     private final static String NULL_PERSON;
+    private final static String DUPLICATE_STUDENT_NUM;
+    private final static String INVALID_STUDENT_NUM;
+    private final static String DUPLICATE_IN_SNAPSHOT;
     private final static String FILENAME;
+    private final static String LINE_SEPARATOR;
+    private final static int    PRINT_BUFFER_CHARS; // rendered text is written out once it reaches this length
+    private final static int    PRINT_BUFFER_BYTES;
+    private final static int    INDEX_BATCH; // rows of an existing roster indexed at a time
 
     static
     {
-        CURRENT_YEAR = 2022;
-        NULL_PERSON  = "cannot register a non-person";
-        FILENAME     = "people.txt";
+        CURRENT_YEAR          = 2022;
+        NULL_PERSON           = "cannot register a non-person";
+        DUPLICATE_STUDENT_NUM = "duplicate student number";
+        INVALID_STUDENT_NUM   = "bad student number";
+        DUPLICATE_IN_SNAPSHOT = "corrupt roster snapshot: duplicate student number";
+        FILENAME              = "people.txt";
+        LINE_SEPARATOR        = System.lineSeparator();
+        PRINT_BUFFER_CHARS    = 1 << 16;
+        PRINT_BUFFER_BYTES    = 1 << 17;
+        INDEX_BATCH           = 1 << 16;
     }
 
     /**
@@ -30,7 +77,7 @@ public class School
      *
      * @param p the person to add
      *
-     * @throws IllegalPersonException if the person is null
+     * @throws IllegalPersonException if the person is null or is a student whose number is already registered
      */
     public void register(final Person p)
     {
@@ -38,87 +85,903 @@ public class School
         {
             throw new IllegalPersonException(NULL_PERSON);
         }
-        people.add(p);
+
+        int               row;
+        boolean           bound;
+        DuplicateDetector detector;
+
+        // Claim the student number first, so that two concurrent registrations cannot both take it
+        if(p instanceof Student && !studentNumbers.reserve(((Student) p).getStudentNumberCode()))
+        {
+            throw new IllegalPersonException(DUPLICATE_STUDENT_NUM);
+        }
+
+        bound = false;
+        try
+        {
+            row = people.add(p);
+            if(p instanceof Student)
+            {
+                studentNumbers.bind(((Student) p).getStudentNumberCode(), row);
+            }
+            bound = true;
+        }
+        finally
+        {
+            // A person that could not be stored must not keep the number from being registered again
+            if(!bound && p instanceof Student)
+            {
+                studentNumbers.release(((Student) p).getStudentNumberCode());
+            }
+        }
+
+        firstNames.add(p.getName().getFirst(), row);
+        lastNames.add(p.getName().getLast(), row);
+
+        if(p instanceof Teacher)
+        {
+            specialties.add(((Teacher) p).getSpecialty(), row);
+        }
+
+        detector = duplicates;
+        if(detector != null)
+        {
+            for(int match : detector.checkAndAdd(p, row))
+            {
+                suspectedDuplicates.add(new DuplicateMatch(p, people.get(match)));
+            }
+        }
+    }
+
+    /**
+     * Registers a batch of people, such as a term's intake. The batch is validated in one pass and every person that
+     * fails validation is reported instead of stopping the import; the rest are registered. Storage is grown once for
+     * the batch and each index is updated once for the batch rather than once per person.
+     *
+     * @param batch the people to register
+     *
+     * @return a report of how many people were registered and which were rejected
+     */
+    public RegistrationReport registerAll(final Collection<? extends Person> batch)
+    {
+        List<Person>                       accepted;
+        List<RegistrationReport.Rejection> rejections;
+        int                                position;
+        long[]                             reserved;
+        int                                reservedCount;
+        boolean                            bound;
+        int                                first;
+        DuplicateDetector                  detector;
+
+        accepted      = new ArrayList<>(batch.size());
+        rejections    = new ArrayList<>();
+        position      = 0;
+        reserved      = new long[batch.size()];
+        reservedCount = 0;
+        bound         = false;
+
+        try
+        {
+            // Validate, claiming student numbers so that duplicates within the batch are caught too
+            for(Person p : batch)
+            {
+                if(p == null)
+                {
+                    rejections.add(new RegistrationReport.Rejection(position, null, NULL_PERSON));
+                }
+                else if(p instanceof Student && !studentNumbers.reserve(((Student) p).getStudentNumberCode()))
+                {
+                    rejections.add(new RegistrationReport.Rejection(position, p, DUPLICATE_STUDENT_NUM));
+                }
+                else
+                {
+                    if(p instanceof Student)
+                    {
+                        reserved[reservedCount++] = ((Student) p).getStudentNumberCode();
+                    }
+                    accepted.add(p);
+                }
+                position++;
+            }
+
+            first = people.addAll(accepted);
+            index(accepted, first, true);
+            bound = true;
+        }
+        finally
+        {
+            // A batch that could not be stored must not keep its numbers from being registered again
+            if(!bound)
+            {
+                studentNumbers.releaseAll(reserved, reservedCount);
+            }
+        }
+
+        detector = duplicates;
+        if(detector != null)
+        {
+            int[][] matches;
+            matches = detector.checkAndAddAll(accepted, first);
+
+            for(int i = 0; i < matches.length; i++)
+            {
+                for(int match : matches[i])
+                {
+                    suspectedDuplicates.add(new DuplicateMatch(accepted.get(i), people.get(match)));
+                }
+            }
+        }
+        return new RegistrationReport(accepted.size(), rejections);
     }
 
-    /** Constructs a School */
+    /**
+     * Registers a stream of people as one batch; see {@link #registerAll(Collection)}.
+     *
+     * @param batch the people to register
+     *
+     * @return a report of how many people were registered and which were rejected
+     */
+    public RegistrationReport registerAll(final Stream<? extends Person> batch)
+    {
+        return registerAll(batch.collect(Collectors.toList()));
+    }
+
+    /**
+     * Files a batch of people stored at consecutive rows in every index, one bulk update per index.
+     *
+     * @param batch   the people, already on the roster
+     * @param first   the row of the first person
+     * @param claimed whether the students' numbers were claimed with {@link StudentNumberIndex#reserve(long)}, as
+     *                registration does; if not, they are filed only if no other student has them
+     *
+     * @throws IllegalPersonException if the numbers were not claimed and one of them is already filed
+     */
+    private void index(final List<Person> batch, final int first, final boolean claimed)
+    {
+        String[] firsts;
+        String[] lasts;
+        int[]    rows;
+        long[]   numbers;
+        int[]    studentRows;
+        int      studentCount;
+        String[] specialtyNames;
+        int[]    teacherRows;
+        int      teachers;
+
+        firsts         = new String[batch.size()];
+        lasts          = new String[batch.size()];
+        rows           = new int[batch.size()];
+        numbers        = new long[batch.size()];
+        studentRows    = new int[batch.size()];
+        studentCount   = 0;
+        specialtyNames = new String[batch.size()];
+        teacherRows    = new int[batch.size()];
+        teachers       = 0;
+
+        for(int i = 0; i < batch.size(); i++)
+        {
+            Person p;
+            p = batch.get(i);
+
+            firsts[i] = p.getName().getFirst();
+            lasts[i]  = p.getName().getLast();
+            rows[i]   = first + i;
+
+            if(p instanceof Student)
+            {
+                numbers[studentCount]     = ((Student) p).getStudentNumberCode();
+                studentRows[studentCount] = first + i;
+                studentCount++;
+            }
+            else if(p instanceof Teacher)
+            {
+                specialtyNames[teachers] = ((Teacher) p).getSpecialty();
+                teacherRows[teachers]    = first + i;
+                teachers++;
+            }
+        }
+
+        if(claimed)
+        {
+            studentNumbers.bindAll(numbers, studentRows, studentCount);
+        }
+        else if(!studentNumbers.putAllIfAbsent(numbers, studentRows, studentCount))
+        {
+            throw new IllegalPersonException(DUPLICATE_STUDENT_NUM);
+        }
+        firstNames.addAll(firsts, rows, rows.length);
+        lastNames.addAll(lasts, rows, rows.length);
+        specialties.addAll(specialtyNames, teacherRows, teachers);
+    }
+
+    /**
+     * Turns on duplicate detection. From now on, a registration whose date of birth matches an existing person and
+     * whose name sounds the same is recorded in {@link #getSuspectedDuplicates()}. The person is still registered.
+     * People already on the roster are indexed so they can be matched too. Registrations running concurrently with
+     * this call may not be checked.
+     */
+    public synchronized void enableDuplicateDetection()
+    {
+        if(duplicates == null)
+        {
+            DuplicateDetector detector;
+            int               end;
+
+            detector = new DuplicateDetector();
+            end      = people.size();
+
+            for(int row = 0; row < end; row++)
+            {
+                detector.checkAndAdd(people.get(row), row);
+            }
+            duplicates = detector;
+        }
+    }
+
+    /**
+     * Returns the suspected duplicates found since duplicate detection was turned on, in registration order.
+     *
+     * @return an unmodifiable copy of the suspected duplicates
+     */
+    public List<DuplicateMatch> getSuspectedDuplicates()
+    {
+        synchronized(suspectedDuplicates)
+        {
+            return List.copyOf(suspectedDuplicates);
+        }
+    }
+
+    /**
+     * Constructs a School that keeps its people in a {@link ChunkedRoster}, so people can be registered from many
+     * threads and reports can run while registration continues.
+     */
     public School()
     {
-        // Initializer block to create an empty ArrayList and assign it to the List variable
-        people = new ArrayList<>();
+        this(new ChunkedRoster());
     }
 
-    /** Prints the roster of people in the school. */
-    public void printRoster()
+    /**
+     * Constructs a School that keeps its people in the specified roster, e.g. a {@link ColumnarRoster}. A school
+     * built on a {@link ChunkedRoster} accepts registrations from many threads at once. People already on the roster,
+     * such as one read back by {@link RosterFile}, are indexed as if they had been registered.
+     *
+     * @param roster the roster to store people in
+     *
+     * @throws IllegalPersonException if two students already on the roster have the same student number
+     */
+    public School(final Roster roster)
     {
-        people.forEach(System.out::println);
+        this(roster, Path.of(FILENAME));
     }
 
+    /**
+     * Constructs a School that keeps its people in the specified roster and saves their details to the specified
+     * file rather than to people.txt. Schools that save in the same process need a file each, since
+     * {@link #saveChangedDetails()} remembers what it has written to the file.
+     *
+     * @param roster      the roster to store people in
+     * @param detailsFile the file that {@link #saveDetails()} and {@link #saveChangedDetails()} keep up to date
+     *
+     * @throws IllegalPersonException if two students already on the roster have the same student number
+     */
+    public School(final Roster roster, final Path detailsFile)
+    {
+        this(roster, detailsFile, true);
+    }
 
     /**
-     * Prints the ages and years of all people in the school. Calculates and prints the age of each person for each year
-     * of their life.
+     * Constructs a School on the specified roster.
+     *
+     * @param roster      the roster to store people in
+     * @param detailsFile the details file
+     * @param indexed     whether to index the people already on the roster; if not, the caller fills the indexes
      */
-    public void printAgesAndYears()
+    private School(final Roster roster, final Path detailsFile, final boolean indexed)
     {
-        int currentYear;
-        currentYear = CURRENT_YEAR;
+        int size;
+
+        people     = roster;
+        firstNames = new NameIndex();
+        lastNames  = new NameIndex();
+
+        studentNumbers = new StudentNumberIndex();
+        specialties    = new SpecialtyIndex();
 
-        for(Person person : people)
+        suspectedDuplicates = Collections.synchronizedList(new ArrayList<>());
+        duplicates          = null;
+
+        details         = new IncrementalExporter(detailsFile, new DetailsFormat());
+        backgroundSaves = new BackgroundSaver<>(details::compact);
+
+        size = indexed ? roster.size() : 0;
+        for(int first = 0; first < size; first += INDEX_BATCH)
         {
-            String fullName;
-            int    yearBorn;
-            int    maxYear;
+            List<Person> batch;
+            int          end;
 
-            fullName = person.getName().getPrettyName();
-            yearBorn = person.getDateOfBirth().getYear();
-            maxYear  = person.isAlive() ? currentYear : person.getDateOfDeath().getYear();
+            end   = Math.min(size, first + INDEX_BATCH);
+            batch = new ArrayList<>(end - first);
 
-            // Lambda expression to print the person's name and age for each year of life
-            Writeable w;
-            w = (name, birthYear, endYear)->{
-                for(int year = birthYear; year <= endYear; year++)
-                {
-                    int age;
-                    age = year - birthYear;
-                    System.out.printf("%s: %d (age %d)%n", name, year, age);
-                }
-            };
+            for(int row = first; row < end; row++)
+            {
+                batch.add(roster.get(row));
+            }
+            index(batch, first, false);
+        }
+    }
+
+    /**
+     * Returns the people whose last name starts with the specified prefix, ignoring case.
+     *
+     * @param prefix the start of the last name
+     *
+     * @return the matching people in alphabetical order of last name
+     */
+    public List<Person> findByLastNamePrefix(final String prefix)
+    {
+        return toPeople(lastNames.find(prefix));
+    }
 
-            // Use the Writeable instance to print data
-            w.printData(fullName, yearBorn, maxYear);
+    /**
+     * Returns at most the specified number of people whose last name starts with the specified prefix, ignoring case.
+     * Suited to type-ahead search, where short prefixes match a large part of the roster.
+     *
+     * @param prefix the start of the last name
+     * @param limit  the maximum number of people to return
+     *
+     * @return the matching people in alphabetical order of last name
+     */
+    public List<Person> findByLastNamePrefix(final String prefix, final int limit)
+    {
+        return toPeople(lastNames.find(prefix, limit));
+    }
+
+    /**
+     * Returns the people whose first name starts with the specified prefix, ignoring case.
+     *
+     * @param prefix the start of the first name
+     *
+     * @return the matching people in alphabetical order of first name
+     */
+    public List<Person> findByFirstNamePrefix(final String prefix)
+    {
+        return toPeople(firstNames.find(prefix));
+    }
+
+    /**
+     * Returns at most the specified number of people whose first name starts with the specified prefix, ignoring
+     * case.
+     *
+     * @param prefix the start of the first name
+     * @param limit  the maximum number of people to return
+     *
+     * @return the matching people in alphabetical order of first name
+     */
+    public List<Person> findByFirstNamePrefix(final String prefix, final int limit)
+    {
+        return toPeople(firstNames.find(prefix, limit));
+    }
+
+    /**
+     * Returns the registered student with the specified student number.
+     *
+     * @param studentNumber the student number
+     *
+     * @return the student, or null if no registered student has that number
+     */
+    public Student findStudent(final String studentNumber)
+    {
+        long code;
+        int  row;
+
+        code = Student.encodeStudentNumber(studentNumber);
+        row  = code < 0 ? -1 : studentNumbers.get(code);
+
+        return row < 0 ? null : (Student) people.get(row);
+    }
+
+    /**
+     * Returns the registered students whose student numbers fall in the specified range, in student number order.
+     *
+     * @param from the lowest student number, inclusive
+     * @param to   the highest student number, inclusive
+     *
+     * @return the students in the range
+     * @throws IllegalPersonException if either bound is not a valid student number
+     */
+    public List<Student> findStudentsInRange(final String from, final String to)
+    {
+        long          fromCode;
+        long          toCode;
+        List<Student> students;
+
+        fromCode = Student.encodeStudentNumber(from);
+        toCode   = Student.encodeStudentNumber(to);
+
+        if(fromCode < 0 || toCode < 0)
+        {
+            throw new IllegalPersonException(INVALID_STUDENT_NUM);
+        }
+
+        students = new ArrayList<>();
+        for(int row : studentNumbers.findRange(fromCode, toCode))
+        {
+            students.add((Student) people.get(row));
         }
+        return students;
     }
 
     /**
-     * Saves the details of all people in the school to a file.
+     * Returns the registered teachers with the specified specialty, ignoring case and extra white space.
      *
-     * @throws RuntimeException if an IOException occurs during writing
+     * @param specialty the specialty
+     *
+     * @return the teachers in registration order
      */
-    public void saveDetails()
+    public List<Teacher> findTeachersBySpecialty(final String specialty)
+    {
+        List<Teacher> teachers;
+        teachers = new ArrayList<>();
+
+        for(int row : specialties.find(specialty))
+        {
+            teachers.add((Teacher) people.get(row));
+        }
+        return teachers;
+    }
+
+    /**
+     * Returns the number of registered teachers with the specified specialty, ignoring case and extra white space.
+     *
+     * @param specialty the specialty
+     *
+     * @return the count
+     */
+    public int countTeachersWithSpecialty(final String specialty)
+    {
+        return specialties.count(specialty);
+    }
+
+    /**
+     * Returns the number of registered teachers for every specialty.
+     *
+     * @return the counts keyed by specialty in upper case, in alphabetical order
+     */
+    public Map<String, Integer> getSpecialtyCounts()
     {
-        try(BufferedWriter writer = new BufferedWriter(new FileWriter(FILENAME)))
+        return specialties.counts();
+    }
+
+    /**
+     * Returns the number of people in the school who are alive and were born before the specified date.
+     *
+     * @param date the date
+     *
+     * @return the count
+     */
+    public int countAliveBornBefore(final Date date)
+    {
+        return people.countAliveBornBefore(date.getEpochDay());
+    }
+
+    /**
+     * Returns the age of every person in the school in the specified year, as of the start of the call. This is one
+     * pass over the roster, rather than the every-year-of-every-life work of {@link #printAgesAndYears()}.
+     *
+     * @param year the year
+     *
+     * @return the age of the person at each position of {@link #snapshot()}, or {@link Person#NO_AGE} for people not
+     *         alive in that year
+     * @throws IllegalArgumentException if the year is not a valid year
+     */
+    public int[] agesInYear(final int year)
+    {
+        Roster snapshot;
+        int[]  ages;
+
+        Date.checkYear(year); // for every roster, whether or not its scan builds dates
+        snapshot = snapshot();
+        ages     = new int[snapshot.size()];
+
+        snapshot.agesInYear(year, ages);
+        return ages;
+    }
+
+    /**
+     * Passes each person alive in the specified year, with their age in that year, to the specified action, in
+     * registration order, as of the start of the call.
+     *
+     * @param year   the year
+     * @param action the action to perform on each person and age
+     */
+    public void forEachAgeInYear(final int year, final ObjIntConsumer<? super Person> action)
+    {
+        for(Person p : snapshot())
         {
-            for(Person p : people)
+            int age;
+            age = p.getAgeInYear(year);
+
+            if(age != Person.NO_AGE)
             {
-                String string;
-                string = String.format("%s (%s) was born on %s %s", p.getName().getPrettyName(),
-                                       p.getName().getInitials(), p.getDateOfBirth().getDayOfTheWeek(),
-                                       p.getDateOfBirth());
+                action.accept(p, age);
+            }
+        }
+    }
 
-                if(!p.isAlive())
-                {
-                    string += String.format(" and died on %s %s", p.getDateOfDeath().getDayOfTheWeek(),
-                                            p.getDateOfDeath());
-                }
-                string += ".";
+    /**
+     * Returns the people at the specified roster rows.
+     *
+     * @param rows the rows
+     *
+     * @return the people, in the order of the rows
+     */
+    private List<Person> toPeople(final int[] rows)
+    {
+        List<Person> matches;
+        matches = new ArrayList<>(rows.length);
+
+        for(int row : rows)
+        {
+            matches.add(people.get(row));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns an immutable view of the people registered so far, in registration order. Taking a snapshot is constant
+     * time and does not block registration; people registered afterwards are not included.
+     *
+     * @return the snapshot
+     */
+    public Roster snapshot()
+    {
+        return people.snapshot();
+    }
+
+    /** Prints the roster of people in the school, as of the start of the call. */
+    public void printRoster()
+    {
+        printRoster(System.out);
+    }
+
+    /**
+     * Prints the roster of people in the school to the specified stream, one person per line, as of the start of the
+     * call. The text goes through the stream in big chunks, so it is encoded with the stream's own charset, exactly
+     * as println would encode it. Errors are recorded by the stream; see {@link PrintStream#checkError()}.
+     *
+     * @param out the stream; flushed at the end
+     */
+    public void printRoster(final PrintStream out)
+    {
+        try
+        {
+            printRoster((Appendable) out);
+        }
+        catch(final IOException e)
+        {
+            // Cannot happen: a print stream records errors instead of throwing them
+            throw new UncheckedIOException(e);
+        }
+        out.flush();
+    }
 
-                writer.write(string);
-                writer.newLine();
+    /**
+     * Writes the roster of people in the school, one person per line, as of the start of the call. People are
+     * rendered into a large reusable buffer which is encoded with the platform charset and written in big chunks,
+     * rather than making one small synchronized write per person.
+     *
+     * @param out the stream to write to; flushed at the end
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public void printRoster(final OutputStream out)
+            throws IOException
+    {
+        CharsetEncoder encoder;
+        ByteBuffer     bytes;
+        StringBuilder  lines;
+
+        encoder = Charset.defaultCharset().newEncoder()
+                         .onMalformedInput(CodingErrorAction.REPLACE)
+                         .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes   = ByteBuffer.allocate(PRINT_BUFFER_BYTES);
+        lines   = new StringBuilder(PRINT_BUFFER_CHARS + PRINT_BUFFER_CHARS / 8);
+
+        for(Person p : snapshot())
+        {
+            p.appendTo(lines).append(LINE_SEPARATOR);
+
+            if(lines.length() >= PRINT_BUFFER_CHARS)
+            {
+                encode(lines, encoder, bytes, out);
             }
-        } catch(IOException e)
+        }
+        encode(lines, encoder, bytes, out);
+        out.flush();
+    }
+
+    /**
+     * Writes the roster of people in the school to the specified character sink, such as a {@link java.io.Writer} or
+     * a StringBuilder, one person per line, as of the start of the call. People are rendered into a large reusable
+     * buffer that is handed to the sink in big chunks.
+     *
+     * @param out the sink to write to
+     *
+     * @throws IOException if the sink cannot be written
+     */
+    public void printRoster(final Appendable out)
+            throws IOException
+    {
+        StringBuilder lines;
+        lines = new StringBuilder(PRINT_BUFFER_CHARS + PRINT_BUFFER_CHARS / 8);
+
+        for(Person p : snapshot())
+        {
+            p.appendTo(lines).append(LINE_SEPARATOR);
+
+            if(lines.length() >= PRINT_BUFFER_CHARS)
+            {
+                out.append(lines);
+                lines.setLength(0);
+            }
+        }
+        out.append(lines);
+    }
+
+    /**
+     * Encodes the buffered lines into the byte buffer, writes the bytes to the stream, and empties both buffers.
+     *
+     * @param lines   the rendered lines
+     * @param encoder the encoder, reset before use
+     * @param bytes   the byte buffer, backed by an array
+     * @param out     the stream to write to
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    private static void encode(final StringBuilder lines, final CharsetEncoder encoder, final ByteBuffer bytes,
+                               final OutputStream out)
+            throws IOException
+    {
+        CharBuffer  chars;
+        CoderResult result;
+
+        chars = CharBuffer.wrap(lines);
+        encoder.reset();
+
+        // Replacement is on, so the only results are underflow (all encoded) and overflow (bytes full)
+        do
+        {
+            result = encoder.encode(chars, bytes, true);
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        } while(result.isOverflow());
+
+        do
+        {
+            result = encoder.flush(bytes);
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        } while(result.isOverflow());
+
+        lines.setLength(0);
+    }
+
+
+    /**
+     * Prints the ages and years of all people in the school. Calculates and prints the age of each person for each year
+     * of their life. People registered while printing are not included.
+     */
+    public void printAgesAndYears()
+    {
+        try
+        {
+            Writer out;
+            out = new BufferedWriter(new OutputStreamWriter(System.out), PRINT_BUFFER_CHARS);
+
+            printAgesAndYears(Integer.MIN_VALUE, Integer.MAX_VALUE, out);
+            out.flush();
+        }
+        catch(final IOException e)
         {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Writes the age of each person in the school for each year of their life that falls in the specified window, as
+     * of the start of the call. People are rendered in parallel; the output is in roster order. See
+     * {@link AgesReport}.
+     *
+     * @param fromYear the first year to report, inclusive
+     * @param toYear   the last year to report, inclusive
+     * @param out      the sink to write to
+     *
+     * @throws IOException if the sink cannot be written
+     */
+    public void printAgesAndYears(final int fromYear, final int toYear, final Appendable out)
+            throws IOException
+    {
+        new AgesReport(fromYear, toYear, CURRENT_YEAR).write(snapshot(), out);
+    }
+
+    /**
+     * Saves the details of all people in the school to its details file, people.txt unless another was given to the
+     * constructor, replacing it atomically. People registered while saving are not included. Later calls to
+     * {@link #saveChangedDetails()} append to this file.
+     *
+     * @throws RuntimeException if an IOException occurs during writing
+     */
+    public void saveDetails()
+    {
+        try
+        {
+            details.compact(snapshot());
+        }
+        catch(final IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Saves the details of all people in the school to a file, as {@link #saveDetails()} does, on a background thread.
+     * The snapshot to save is taken by this call, on the caller's thread, so registrations carry on unblocked while
+     * the save runs, whatever the roster: a {@link ChunkedRoster} gives a view that is safe to read while it grows, and
+     * the rosters that are not safe for concurrent use give a copy (see {@link Roster#snapshot()}). Calls made while
+     * a save is running share one follow-up save of the latest of their snapshots rather than queueing one each. See
+     * {@link BackgroundSaver}.
+     *
+     * @return a future that completes once a save of this call's snapshot, or of a later one, has finished, or
+     *         completes exceptionally with the IOException if that save failed
+     */
+    public CompletableFuture<Void> saveDetailsAsync()
+    {
+        return backgroundSaves.request(snapshot());
+    }
+
+    /**
+     * Appends to the details file the people registered, or changed (e.g. by {@link Person#die(Date)}), since the last
+     * save, rather than rewriting every person. Each appended record is keyed with its person's row, and a later
+     * record replaces an earlier one for the same row. The file is compacted when too many of its records are
+     * superseded, and is written in full if it does not exist yet. See {@link IncrementalExporter}.
+     *
+     * @return the number of records written
+     * @throws IOException if the file cannot be written
+     */
+    public int saveChangedDetails()
+            throws IOException
+    {
+        return details.save(snapshot());
+    }
+
+    /**
+     * Rewrites the details file with one record per person, folding in the records appended by
+     * {@link #saveChangedDetails()}. Suited to a periodic schedule.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void compactDetails()
+            throws IOException
+    {
+        details.compact(snapshot());
+    }
+
+    /**
+     * Saves the details of all people in the school, as of the start of the call, to the specified file as UTF-8,
+     * replacing its contents. See {@link RosterSerializer} to write another format or to reuse buffers across schools.
+     *
+     * @param path the file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void saveDetails(final Path path)
+            throws IOException
+    {
+        new RosterSerializer().write(snapshot(), path);
+    }
+
+    /**
+     * Saves the details of all people in the school, as of the start of the call, to the specified file as
+     * GZIP-compressed UTF-8, replacing its contents. Read it back with {@link CompressedDetails#lines(Path)}.
+     *
+     * @param path the file, conventionally ending in ".gz"
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void saveCompressedDetails(final Path path)
+            throws IOException
+    {
+        CompressedDetails.write(snapshot(), new RosterSerializer(), path);
+    }
+
+    /**
+     * Saves the details of all people in the school, as of the start of the call, to the specified file as UTF-8,
+     * encoding chunks of the roster in parallel on the common fork-join pool. The file is byte for byte the one
+     * {@link #saveDetails(Path)} writes. See {@link ParallelRosterSerializer} to use another pool.
+     *
+     * @param path the file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void saveDetailsInParallel(final Path path)
+            throws IOException
+    {
+        new ParallelRosterSerializer().write(snapshot(), path);
+    }
+
+    /**
+     * Writes the details of all people in the school, as of the start of the call, to the specified channel as UTF-8.
+     * The channel is left open.
+     *
+     * @param channel the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void saveDetails(final WritableByteChannel channel)
+            throws IOException
+    {
+        new RosterSerializer().write(snapshot(), channel);
+    }
+
+    /**
+     * Saves every person in the school, as of the start of the call, to the specified file as a binary snapshot
+     * with a student number index, replacing it atomically. See {@link RosterFile} for the format.
+     *
+     * @param path the file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void saveSnapshot(final Path path)
+            throws IOException
+    {
+        RosterFile.write(snapshot(), path, true);
+    }
+
+    /**
+     * Loads a school from a binary snapshot written by {@link #saveSnapshot(Path)}. The people are kept off-heap in
+     * an {@link OffHeapRoster}, which accepts registrations from one thread at a time. The indexes are built
+     * straight from the snapshot's ids without making Person objects: each distinct name and specialty is filed once
+     * with all of its rows, and students are filed from the snapshot's student number index when it has one.
+     *
+     * @param path the file
+     *
+     * @return the school
+     * @throws IOException if the file cannot be read, is corrupt (including two students with the same number), or is
+     *                     not a snapshot of a supported version
+     */
+    public static School loadSnapshot(final Path path)
+            throws IOException
+    {
+        try(RosterFile file = RosterFile.open(path))
+        {
+            School school;
+            long[] keys;
+            int[]  rows;
+            int    students;
+
+            school = new School(file.readRoster(), Path.of(FILENAME), false);
+            school.firstNames.addAll(file.groupByFirstName());
+            school.lastNames.addAll(file.groupByLastName());
+            school.specialties.addAll(file.groupBySpecialty());
+
+            if(file.hasStudentIndex())
+            {
+                keys     = new long[file.getStudentCount()];
+                rows     = new int[file.getStudentCount()];
+                students = file.getStudentCount();
+                file.readStudentIndex(keys, rows);
+            }
+            else
+            {
+                keys     = new long[file.size()];
+                rows     = new int[file.size()];
+                students = file.readStudentRecords(keys, rows);
+            }
+            if(!school.studentNumbers.putAllIfAbsent(keys, rows, students))
+            {
+                throw new IOException(DUPLICATE_IN_SNAPSHOT);
+            }
+            return school;
+        }
+    }
 }
@@ -0,0 +1,190 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index from teaching specialty to the roster rows of the teachers who have it. Specialties are compared
+ * ignoring case and extra white space, so "Computer  Science" and "COMPUTER SCIENCE" are the same specialty. The
+ * number of teachers per specialty is the size of its row list, so counts are constant time. Safe for concurrent
+ * use: each specialty's row list is guarded by its own lock.
+ *
+ * @author Sabrina Nunes
+ */
+public class SpecialtyIndex
+{
+    private final Map<String, IntList> teachers;
+
+    private final static Pattern WHITE_SPACE;
+    private final static String  SPACE;
+    private final static int[]   NO_ROWS;
+
+    static
+    {
+        WHITE_SPACE = Pattern.compile("\\s+");
+        SPACE       = " ";
+        NO_ROWS     = new int[0];
+    }
+
+    /** Constructs an empty SpecialtyIndex. */
+    public SpecialtyIndex()
+    {
+        teachers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a teacher's roster row under the specified specialty.
+     *
+     * @param specialty the specialty
+     * @param row       the roster row of the teacher
+     */
+    public void add(final String specialty, final int row)
+    {
+        IntList rows;
+        rows = teachers.computeIfAbsent(normalize(specialty), key->new IntList());
+
+        synchronized(rows)
+        {
+            rows.add(row);
+        }
+    }
+
+    /**
+     * Adds a batch of teachers' roster rows, each under the specialty at the same position. Rows are grouped by
+     * specialty first, so each specialty's list is locked and grown once for the whole batch.
+     *
+     * @param specialties the specialties
+     * @param rows        the roster rows of the teachers
+     * @param count       the number of rows to add
+     */
+    public void addAll(final String[] specialties, final int[] rows, final int count)
+    {
+        Map<String, IntList> groups;
+        groups = new HashMap<>();
+
+        for(int i = 0; i < count; i++)
+        {
+            groups.computeIfAbsent(normalize(specialties[i]), key->new IntList()).add(rows[i]);
+        }
+        groups.forEach((specialty, group)->
+                       {
+                           IntList existing;
+                           existing = teachers.computeIfAbsent(specialty, key->new IntList());
+
+                           synchronized(existing)
+                           {
+                               existing.addAll(group.toArray(), group.size());
+                           }
+                       });
+    }
+
+    /**
+     * Adds the rows of every group under the group's specialty. Each specialty is normalized and looked up once, and
+     * its rows are attached in one copy. Rows stay in registration order even when two spellings of one specialty
+     * are added one after the other.
+     *
+     * @param groups the teachers' rows grouped by specialty, such as those of a {@link RosterFile}
+     */
+    public void addAll(final RowGroups groups)
+    {
+        for(int group = 0; group < groups.size(); group++)
+        {
+            IntList existing;
+            boolean ordered;
+
+            if(groups.start(group) == groups.end(group))
+            {
+                continue;
+            }
+            existing = teachers.computeIfAbsent(normalize(groups.getString(group)), key->new IntList());
+
+            synchronized(existing)
+            {
+                ordered = existing.size() == 0 ||
+                          existing.get(existing.size() - 1) < groups.rows()[groups.start(group)];
+
+                existing.addRange(groups.rows(), groups.start(group), groups.end(group));
+                if(!ordered)
+                {
+                    existing.sort();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the rows of the teachers with the specified specialty.
+     *
+     * @param specialty the specialty
+     *
+     * @return the rows in registration order
+     */
+    public int[] find(final String specialty)
+    {
+        IntList rows;
+        rows = teachers.get(normalize(specialty));
+
+        if(rows == null)
+        {
+            return NO_ROWS;
+        }
+        synchronized(rows)
+        {
+            return rows.toArray();
+        }
+    }
+
+    /**
+     * Returns the number of teachers with the specified specialty.
+     *
+     * @param specialty the specialty
+     *
+     * @return the count
+     */
+    public int count(final String specialty)
+    {
+        IntList rows;
+        rows = teachers.get(normalize(specialty));
+
+        if(rows == null)
+        {
+            return 0;
+        }
+        synchronized(rows)
+        {
+            return rows.size();
+        }
+    }
+
+    /**
+     * Returns the number of teachers for every specialty.
+     *
+     * @return the counts keyed by normalized specialty, in alphabetical order
+     */
+    public Map<String, Integer> counts()
+    {
+        Map<String, Integer> counts;
+        counts = new TreeMap<>();
+
+        teachers.forEach((specialty, rows)->{
+            synchronized(rows)
+            {
+                counts.put(specialty, rows.size());
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Returns the specified specialty in the form used as a key: stripped, upper case, with single spaces.
+     *
+     * @param specialty the specialty
+     *
+     * @return the key
+     */
+    public static String normalize(final String specialty)
+    {
+        return WHITE_SPACE.matcher(specialty.strip()).replaceAll(SPACE).toUpperCase();
+    }
+}
@@ -1,20 +1,29 @@
 /**
- * Represents a student, which is a type of person. Each student has a unique student number.
+ * Represents a student, which is a type of person. Each student has a unique student number. The number is stored
+ * packed into a single long (see {@link #encodeStudentNumber(String)}) rather than as a String.
  *
  * @author Sabrina Nunes
  */
 public class Student
         extends Person
 {
-    private final String studentNumber;
+    private final long studentNumberCode;
 
     private final static int    STUDENT_NUM_EXACT_CHARS;
     private final static String INVALID_STUDENT_NUM;
+    private final static int    BITS_PER_CHAR; // 9 ASCII characters of 7 bits fit in the 63 bits of a positive long
+    private final static char   MAX_CHAR;
+    private final static long   INVALID_CODE;
+    private final static int    CHAR_MASK;
 
     static
     {
         STUDENT_NUM_EXACT_CHARS = 9;
         INVALID_STUDENT_NUM     = "bad student number";
+        BITS_PER_CHAR           = 7;
+        MAX_CHAR                = (char) ((1 << BITS_PER_CHAR) - 1);
+        INVALID_CODE            = -1L;
+        CHAR_MASK               = (1 << BITS_PER_CHAR) - 1;
     }
 
     /**
@@ -24,17 +33,40 @@ public class Student
      * @param name          the name, from super class
      * @param studentNumber the student number
      *
-     * @throws IllegalArgumentException if the student number is invalid
+     * @throws IllegalPersonException if the student number is not 9 ASCII characters
      */
     public Student(final Date born, final Name name, final String studentNumber)
     {
         super(born, name);
 
-        if(studentNumber == null || studentNumber.isBlank() || studentNumber.length() != STUDENT_NUM_EXACT_CHARS)
+        long code;
+        code = encodeStudentNumber(studentNumber);
+
+        if(code == INVALID_CODE)
         {
             throw new IllegalPersonException(INVALID_STUDENT_NUM);
         }
-        this.studentNumber = studentNumber;
+        this.studentNumberCode = code;
+    }
+
+    /**
+     * Constructs a Student from an already encoded student number, as stored by compact rosters.
+     *
+     * @param born              the birthdate, from super class
+     * @param name              the name, from super class
+     * @param studentNumberCode the student number, as produced by {@link #encodeStudentNumber(String)}
+     *
+     * @throws IllegalPersonException if the code is negative
+     */
+    Student(final Date born, final Name name, final long studentNumberCode)
+    {
+        super(born, name);
+
+        if(studentNumberCode < 0)
+        {
+            throw new IllegalPersonException(INVALID_STUDENT_NUM);
+        }
+        this.studentNumberCode = studentNumberCode;
     }
 
     /**
@@ -44,26 +76,116 @@ public class Student
      */
     public String getStudentNumber()
     {
-        return studentNumber;
+        return decodeStudentNumber(studentNumberCode);
     }
 
     /**
-     * Returns the string representation of this student.
+     * Returns the student number packed into a long, as produced by {@link #encodeStudentNumber(String)}.
      *
-     * @return the string representation of this student
+     * @return the encoded student number
      */
-    @Override
-    public String toString()
+    public long getStudentNumberCode()
+    {
+        return studentNumberCode;
+    }
+
+    /**
+     * Appends the student number to the specified builder without creating a String.
+     *
+     * @param sb the builder to append to
+     *
+     * @return the builder
+     */
+    public StringBuilder appendStudentNumber(final StringBuilder sb)
+    {
+        for(int i = STUDENT_NUM_EXACT_CHARS - 1; i >= 0; i--)
+        {
+            sb.append(charAt(studentNumberCode, i));
+        }
+        return sb;
+    }
+
+    /**
+     * Returns the specified student number packed into a long, seven bits per character with the first character in
+     * the highest bits. The code is never negative, and codes sort in the same order as the numbers they encode.
+     *
+     * @param studentNumber the student number
+     *
+     * @return the code, or -1 if the student number is null, blank, not 9 characters long, or not ASCII
+     */
+    public static long encodeStudentNumber(final String studentNumber)
+    {
+        long code;
+
+        if(studentNumber == null || studentNumber.isBlank() || studentNumber.length() != STUDENT_NUM_EXACT_CHARS)
+        {
+            return INVALID_CODE;
+        }
+
+        code = 0;
+        for(int i = 0; i < STUDENT_NUM_EXACT_CHARS; i++)
+        {
+            char c;
+            c = studentNumber.charAt(i);
+
+            if(c > MAX_CHAR)
+            {
+                return INVALID_CODE;
+            }
+            code = (code << BITS_PER_CHAR) | c;
+        }
+        return code;
+    }
+
+    /**
+     * Returns the student number that the specified code encodes.
+     *
+     * @param code a code produced by {@link #encodeStudentNumber(String)}
+     *
+     * @return the student number
+     * @throws IllegalArgumentException if the code is negative
+     */
+    public static String decodeStudentNumber(final long code)
     {
-        String string;
-        string = String.format("%s (student number: %s) was born %s and is still alive", getName().getPrettyName(),
-                               studentNumber, getDateOfBirth().getYyyyMmDd());
+        char[] chars;
 
-        if(!isAlive())
+        if(code < 0)
         {
-            string = String.format("%s (student number: %s) was born %s and died %s", getName().getPrettyName(),
-                                   studentNumber, getDateOfBirth().getYyyyMmDd(), getDateOfDeath().getYyyyMmDd());
+            throw new IllegalArgumentException(INVALID_STUDENT_NUM);
         }
-        return string;
+
+        chars = new char[STUDENT_NUM_EXACT_CHARS];
+        for(int i = 0; i < STUDENT_NUM_EXACT_CHARS; i++)
+        {
+            chars[i] = charAt(code, STUDENT_NUM_EXACT_CHARS - 1 - i);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns the character of an encoded student number at the specified position, counted from the last character.
+     *
+     * @param code            the encoded student number
+     * @param positionFromEnd 0 for the last character
+     *
+     * @return the character
+     */
+    private static char charAt(final long code, final int positionFromEnd)
+    {
+        return (char) ((code >>> (positionFromEnd * BITS_PER_CHAR)) & CHAR_MASK);
+    }
+
+    /**
+     * Appends the student number, as in "Tiger Woods (student number: A12345678) was born ...".
+     *
+     * @param string the builder to append to
+     *
+     * @return the builder
+     */
+    @Override
+    protected StringBuilder appendRole(final StringBuilder string)
+    {
+        string.append(" (student number: ");
+        return appendStudentNumber(string).append(')');
     }
 }
@@ -0,0 +1,590 @@
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from encoded student numbers to roster rows. Keys are the non-negative longs produced
+ * by {@link Student#encodeStudentNumber(String)}, so both keys and values are stored in primitive arrays with no
+ * boxing and no per-entry objects. Uses linear probing and doubles a table's capacity when it is more than half full.
+ * <p>
+ * Safe for concurrent use. Keys are spread over STRIPES tables by hash, each guarded by its own lock. A key is first
+ * reserved, which is where duplicates are rejected, and then bound to its row once the person has been stored.
+ *
+ * @author Sabrina Nunes
+ */
+public class StudentNumberIndex
+{
+    private final Table[] stripes;
+
+    private final static long EMPTY; // keys are never negative
+    private final static int  INITIAL_CAPACITY;
+    private final static int  NOT_FOUND;
+    private final static int  PENDING; // row of a reserved key that is not bound yet
+    private final static int  STRIPES;
+
+    static
+    {
+        EMPTY            = -1L;
+        INITIAL_CAPACITY = 16;
+        NOT_FOUND        = -1;
+        PENDING          = -2;
+        STRIPES          = 16;
+    }
+
+    /** Constructs an empty StudentNumberIndex. */
+    public StudentNumberIndex()
+    {
+        stripes = new Table[STRIPES];
+
+        for(int i = 0; i < STRIPES; i++)
+        {
+            stripes[i] = new Table();
+        }
+    }
+
+    /**
+     * Returns the row filed under the specified key.
+     *
+     * @param key the encoded student number
+     *
+     * @return the row, or -1 if the key is not in the index or not bound to a row yet
+     */
+    public int get(final long key)
+    {
+        Table stripe;
+        int   row;
+
+        stripe = stripeOf(key);
+        synchronized(stripe)
+        {
+            row = stripe.get(key);
+        }
+        return row == PENDING ? NOT_FOUND : row;
+    }
+
+    /**
+     * Claims the specified key unless it is already present. A claimed key must then be bound with
+     * {@link #bind(long, int)}.
+     *
+     * @param key the encoded student number
+     *
+     * @return true if the key was claimed, false if it was already present
+     */
+    public boolean reserve(final long key)
+    {
+        Table stripe;
+        stripe = stripeOf(key);
+
+        synchronized(stripe)
+        {
+            return stripe.putIfAbsent(key, PENDING);
+        }
+    }
+
+    /**
+     * Files the specified row under a key claimed with {@link #reserve(long)}.
+     *
+     * @param key the encoded student number
+     * @param row the roster row
+     */
+    public void bind(final long key, final int row)
+    {
+        Table stripe;
+        stripe = stripeOf(key);
+
+        synchronized(stripe)
+        {
+            stripe.put(key, row);
+        }
+    }
+
+    /**
+     * Gives up a key claimed with {@link #reserve(long)} that will not be bound, e.g. because storing the person
+     * failed, so the student number can be registered later. A key already bound to a row is left alone.
+     *
+     * @param key the encoded student number
+     */
+    public void release(final long key)
+    {
+        Table stripe;
+        stripe = stripeOf(key);
+
+        synchronized(stripe)
+        {
+            if(stripe.get(key) == PENDING)
+            {
+                stripe.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Gives up a batch of keys claimed with {@link #reserve(long)}; see {@link #release(long)}. Each stripe is locked
+     * once for the whole batch.
+     *
+     * @param keys  the encoded student numbers
+     * @param count the number of keys to release
+     */
+    public void releaseAll(final long[] keys, final int count)
+    {
+        for(Table stripe : stripes)
+        {
+            synchronized(stripe)
+            {
+                for(int i = 0; i < count; i++)
+                {
+                    if(stripeOf(keys[i]) == stripe && stripe.get(keys[i]) == PENDING)
+                    {
+                        stripe.remove(keys[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Files a batch of rows, each under the key at the same position, every key having been claimed with
+     * {@link #reserve(long)}. The batch is sorted by stripe first, hashing each key once, and each stripe is then
+     * locked once and grown up front to hold its share of the batch, so a large batch costs at most one rehash per
+     * stripe.
+     *
+     * @param keys  the encoded student numbers
+     * @param rows  the roster rows
+     * @param count the number of keys to bind
+     */
+    public void bindAll(final long[] keys, final int[] rows, final int count)
+    {
+        fileAll(keys, rows, count, true);
+    }
+
+    /**
+     * Files a batch of rows, each under the key at the same position, for keys that were not claimed, such as those
+     * of people already on a roster when its school is built. Filed like {@link #bindAll(long[], int[], int)}, but
+     * filing stops at the first key that is already present, or that appears twice in the batch, and never replaces
+     * a row.
+     *
+     * @param keys  the encoded student numbers
+     * @param rows  the roster rows
+     * @param count the number of keys to file
+     *
+     * @return true if every key was filed, false if some key was already present; some of the others may be filed
+     */
+    public boolean putAllIfAbsent(final long[] keys, final int[] rows, final int count)
+    {
+        return fileAll(keys, rows, count, false);
+    }
+
+    /**
+     * Files a batch of rows, sorted by stripe first so that each key is hashed to its stripe once and each stripe is
+     * locked and grown once.
+     *
+     * @param keys    the encoded student numbers
+     * @param rows    the roster rows
+     * @param count   the number of keys to file
+     * @param replace whether a key already present takes the new row, as a claimed key does
+     *
+     * @return true if every key was filed, false if replace is false and some key was already present
+     */
+    private boolean fileAll(final long[] keys, final int[] rows, final int count, final boolean replace)
+    {
+        int[] stripeOfKey;
+        int[] starts; // the keys of stripe n are at order[starts[n]] up to order[starts[n + 1]]
+        int[] next;
+        int[] order;
+
+        stripeOfKey = new int[count];
+        starts      = new int[STRIPES + 1];
+        order       = new int[count];
+
+        for(int i = 0; i < count; i++)
+        {
+            stripeOfKey[i] = stripeIndexOf(keys[i]);
+            starts[stripeOfKey[i] + 1]++;
+        }
+        for(int index = 1; index <= STRIPES; index++)
+        {
+            starts[index] += starts[index - 1];
+        }
+        next = Arrays.copyOf(starts, STRIPES);
+        for(int i = 0; i < count; i++)
+        {
+            order[next[stripeOfKey[i]]++] = i;
+        }
+
+        for(int index = 0; index < STRIPES; index++)
+        {
+            Table stripe;
+
+            if(starts[index] == starts[index + 1])
+            {
+                continue;
+            }
+            stripe = stripes[index];
+
+            synchronized(stripe)
+            {
+                stripe.makeRoom(starts[index + 1] - starts[index]);
+                for(int position = starts[index]; position < starts[index + 1]; position++)
+                {
+                    if(replace)
+                    {
+                        stripe.put(keys[order[position]], rows[order[position]]);
+                    }
+                    else if(!stripe.putIfAbsent(keys[order[position]], rows[order[position]]))
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Files the specified row under the specified key unless the key is already present.
+     *
+     * @param key the encoded student number
+     * @param row the roster row
+     *
+     * @return true if the row was filed, false if the key was already present
+     */
+    public boolean putIfAbsent(final long key, final int row)
+    {
+        Table stripe;
+        stripe = stripeOf(key);
+
+        synchronized(stripe)
+        {
+            return stripe.putIfAbsent(key, row);
+        }
+    }
+
+    /**
+     * Returns the rows of every bound key in the specified range, ordered by key. Since codes sort like the student
+     * numbers they encode, this is a range scan over student numbers done entirely on primitives.
+     *
+     * @param from the lowest key, inclusive
+     * @param to   the highest key, inclusive
+     *
+     * @return the rows, ordered by key
+     */
+    public int[] findRange(final long from, final long to)
+    {
+        long[] matches;
+        int    count;
+        int[]  found;
+        int    rows;
+
+        matches = new long[0];
+        count   = 0;
+
+        for(Table stripe : stripes)
+        {
+            synchronized(stripe)
+            {
+                matches = Arrays.copyOf(matches, count + stripe.size);
+                count   = stripe.collectRange(from, to, matches, count);
+            }
+        }
+        Arrays.sort(matches, 0, count);
+
+        found = new int[count];
+        rows  = 0;
+        for(int i = 0; i < count; i++)
+        {
+            int row;
+            row = get(matches[i]);
+
+            if(row >= 0)
+            {
+                found[rows++] = row;
+            }
+        }
+        return rows == count ? found : Arrays.copyOf(found, rows);
+    }
+
+    /**
+     * Returns the number of keys in the index, including reserved keys.
+     *
+     * @return the size
+     */
+    public int size()
+    {
+        int size;
+        size = 0;
+
+        for(Table stripe : stripes)
+        {
+            synchronized(stripe)
+            {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the table that holds the specified key.
+     *
+     * @param key the key
+     *
+     * @return the stripe
+     */
+    private Table stripeOf(final long key)
+    {
+        return stripes[stripeIndexOf(key)];
+    }
+
+    /**
+     * Returns the position of the stripe that holds the specified key.
+     *
+     * @param key the key
+     *
+     * @return the position in stripes
+     */
+    private static int stripeIndexOf(final long key)
+    {
+        return (int) (mix(key) >>> (Long.SIZE - Integer.numberOfTrailingZeros(STRIPES)));
+    }
+
+    /**
+     * Spreads the bits of the specified key. Encoded student numbers differ mostly in their low bits, which would
+     * otherwise cluster in the table.
+     *
+     * @param key the key
+     *
+     * @return the mixed hash
+     */
+    private static long mix(final long key)
+    {
+        long h;
+        h = key;
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** One open-addressing table. Callers hold its lock. */
+    private static class Table
+    {
+        private long[] keys;
+        private int[]  rows;
+        private int    size;
+
+        /** Constructs an empty Table. */
+        Table()
+        {
+            keys = new long[INITIAL_CAPACITY];
+            rows = new int[INITIAL_CAPACITY];
+            size = 0;
+
+            Arrays.fill(keys, EMPTY);
+        }
+
+        /**
+         * Returns the row filed under the specified key.
+         *
+         * @param key the key
+         *
+         * @return the row, PENDING, or NOT_FOUND
+         */
+        int get(final long key)
+        {
+            int slot;
+            slot = slotOf(keys, key);
+
+            return keys[slot] == key ? rows[slot] : NOT_FOUND;
+        }
+
+        /**
+         * Files the specified row under the specified key unless the key is already present.
+         *
+         * @param key the key
+         * @param row the row
+         *
+         * @return true if the row was filed, false if the key was already present
+         */
+        boolean putIfAbsent(final long key, final int row)
+        {
+            int slot;
+            slot = slotOf(keys, key);
+
+            if(keys[slot] == key)
+            {
+                return false;
+            }
+            keys[slot] = key;
+            rows[slot] = row;
+            size++;
+
+            if(size * 2 > keys.length)
+            {
+                grow();
+            }
+            return true;
+        }
+
+        /**
+         * Files the specified row under the specified key, replacing any row already filed.
+         *
+         * @param key the key
+         * @param row the row
+         */
+        void put(final long key, final int row)
+        {
+            int slot;
+            slot = slotOf(keys, key);
+
+            if(keys[slot] == key)
+            {
+                rows[slot] = row;
+            }
+            else
+            {
+                putIfAbsent(key, row);
+            }
+        }
+
+        /**
+         * Removes the specified key, shifting later entries of its probe run back so that lookups still find them.
+         *
+         * @param key the key
+         */
+        void remove(final long key)
+        {
+            int mask;
+            int hole;
+            int next;
+
+            mask = keys.length - 1;
+            hole = slotOf(keys, key);
+
+            if(keys[hole] != key)
+            {
+                return;
+            }
+            keys[hole] = EMPTY;
+            size--;
+
+            for(next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask)
+            {
+                int home;
+                home = (int) mix(keys[next]) & mask;
+
+                // The entry can fill the hole if the hole lies on its probe path from home
+                if(((next - home) & mask) >= ((next - hole) & mask))
+                {
+                    keys[hole] = keys[next];
+                    rows[hole] = rows[next];
+                    keys[next] = EMPTY;
+                    hole       = next;
+                }
+            }
+        }
+
+        /**
+         * Copies the keys in the specified range into an array.
+         *
+         * @param from  the lowest key, inclusive
+         * @param to    the highest key, inclusive
+         * @param dst   the array to copy into
+         * @param count the number of keys already in the array
+         *
+         * @return the number of keys in the array afterwards
+         */
+        int collectRange(final long from, final long to, final long[] dst, final int count)
+        {
+            int found;
+            found = count;
+
+            for(long key : keys)
+            {
+                if(key != EMPTY && key >= from && key <= to)
+                {
+                    dst[found++] = key;
+                }
+            }
+            return found;
+        }
+
+        /** Doubles the capacity and refiles every entry. */
+        private void grow()
+        {
+            resize(keys.length * 2);
+        }
+
+        /**
+         * Grows the table, if needed, so the specified number of new keys fit without growing it again.
+         *
+         * @param count the number of keys about to be added
+         */
+        void makeRoom(final int count)
+        {
+            int capacity;
+            capacity = keys.length;
+
+            while((long) (size + count) * 2 > capacity)
+            {
+                capacity *= 2;
+            }
+            if(capacity > keys.length)
+            {
+                resize(capacity);
+            }
+        }
+
+        /**
+         * Moves every entry into new arrays of the specified capacity.
+         *
+         * @param capacity the new capacity, a power of two larger than the number of keys
+         */
+        private void resize(final int capacity)
+        {
+            long[] oldKeys;
+            int[]  oldRows;
+
+            oldKeys = keys;
+            oldRows = rows;
+            keys    = new long[capacity];
+            rows    = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+
+            for(int i = 0; i < oldKeys.length; i++)
+            {
+                if(oldKeys[i] != EMPTY)
+                {
+                    int slot;
+                    slot = slotOf(keys, oldKeys[i]);
+
+                    keys[slot] = oldKeys[i];
+                    rows[slot] = oldRows[i];
+                }
+            }
+        }
+
+        /**
+         * Returns the slot that holds the specified key, or the empty slot where it would go.
+         *
+         * @param table the key table
+         * @param key   the key
+         *
+         * @return the slot
+         */
+        private static int slotOf(final long[] table, final long key)
+        {
+            int mask;
+            int slot;
+
+            mask = table.length - 1;
+            slot = (int) mix(key) & mask;
+
+            while(table[slot] != EMPTY && table[slot] != key)
+            {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -43,23 +43,15 @@ public class Teacher
     }
 
     /**
-     * Returns the string representation of this teacher.
+     * Appends the specialty, as in "Albert Einstein (specialty: physics) was born ...".
      *
-     * @return the string representation of this teacher
+     * @param string the builder to append to
+     *
+     * @return the builder
      */
     @Override
-    public String toString()
+    protected StringBuilder appendRole(final StringBuilder string)
     {
-        String string;
-        string = String.format("%s (specialty: %s) was born %s and is still alive", getName().getPrettyName(),
-                               specialty, getDateOfBirth().getYyyyMmDd());
-
-        if(!isAlive())
-        {
-            string = String.format("%s (specialty: %s) was born %s and died %s", getName().getPrettyName(), specialty,
-                                   getDateOfBirth().getYyyyMmDd(), getDateOfDeath().getYyyyMmDd());
-        }
-
-        return string;
+        return string.append(" (specialty: ").append(specialty).append(')');
     }
 }
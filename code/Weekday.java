@@ -0,0 +1,61 @@
+/**
+ * Represents a day of the week. Each day is a shared constant, so looking up the weekday of a date allocates nothing.
+ *
+ * @author Sabrina Nunes
+ */
+public enum Weekday
+{
+    MONDAY("Monday"),
+    TUESDAY("Tuesday"),
+    WEDNESDAY("Wednesday"),
+    THURSDAY("Thursday"),
+    FRIDAY("Friday"),
+    SATURDAY("Saturday"),
+    SUNDAY("Sunday");
+
+    private final String displayName;
+
+    private final static Weekday[] DAYS;
+    private final static int       DAYS_PER_WEEK;
+    private final static int       EPOCH_DAY_OFFSET; // 1970-01-01 was a Thursday
+
+    static
+    {
+        DAYS             = values();
+        DAYS_PER_WEEK    = DAYS.length;
+        EPOCH_DAY_OFFSET = THURSDAY.ordinal();
+    }
+
+    /**
+     * Constructs a Weekday with the specified display name.
+     *
+     * @param displayName the capitalized English name of the day
+     */
+    Weekday(final String displayName)
+    {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the weekday of the specified day. The Gregorian calendar repeats every 400 years, and 400 years is a
+     * whole number of weeks, so the weekday is a lookup into the seven constants for every year.
+     *
+     * @param epochDay the number of days since 1970-01-01
+     *
+     * @return the day of the week
+     */
+    public static Weekday ofEpochDay(final int epochDay)
+    {
+        return DAYS[Math.floorMod(epochDay + EPOCH_DAY_OFFSET, DAYS_PER_WEEK)];
+    }
+
+    /**
+     * Returns the capitalized English name of this day, e.g. "Friday".
+     *
+     * @return the display name
+     */
+    public String getDisplayName()
+    {
+        return displayName;
+    }
+}
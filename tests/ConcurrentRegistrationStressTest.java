@@ -0,0 +1,149 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registers millions of people into one School from many threads at once and checks that none are lost. Every
+ * thread also tries to register a student number another thread owns, so the duplicate check is raced too. Meanwhile
+ * a reporting thread keeps walking roster snapshots, which must never change under it.
+ */
+public class ConcurrentRegistrationStressTest
+{
+    private final static int THREADS;
+    private final static int PER_THREAD;
+
+    static
+    {
+        THREADS    = 8;
+        PER_THREAD = 250_000;
+    }
+
+    public static void main(final String[] args)
+            throws InterruptedException
+    {
+        School        school;
+        List<Thread>  threads;
+        AtomicInteger rejected;
+        AtomicBoolean done;
+        AtomicInteger snapshots;
+        AtomicInteger badSnapshots;
+        Thread        reporter;
+        long          start;
+        long          elapsed;
+        int           count;
+        int           contested;
+
+        school       = new School(new ChunkedRoster());
+        threads      = new ArrayList<>();
+        rejected     = new AtomicInteger();
+        done         = new AtomicBoolean();
+        snapshots    = new AtomicInteger();
+        badSnapshots = new AtomicInteger();
+
+        for(int t = 0; t < THREADS; t++)
+        {
+            final int thread;
+            thread = t;
+
+            threads.add(new Thread(()->
+            {
+                for(int i = 0; i < PER_THREAD; i++)
+                {
+                    Date born;
+                    born = Date.ofEpochDay(i % 20_000);
+
+                    // Half students with a number unique to this thread, half teachers
+                    if(i % 2 == 0)
+                    {
+                        school.register(new Student(born, new Name("s" + thread, "n" + i),
+                                                    String.format("S%d%07d", thread, i)));
+                    }
+                    else
+                    {
+                        school.register(new Teacher(born, new Name("t" + thread, "n" + i), "stress"));
+                    }
+
+                    // Every thread races for the same shared student numbers; exactly one of each must win
+                    if(i % 1000 == 0)
+                    {
+                        try
+                        {
+                            school.register(new Student(born, new Name("x", "x"), String.format("X%08d", i)));
+                        }
+                        catch(final IllegalPersonException e)
+                        {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+
+        reporter = new Thread(()->
+        {
+            int previous;
+            previous = 0;
+
+            while(!done.get())
+            {
+                Roster snapshot;
+                int    seen;
+
+                snapshot = school.snapshot();
+                seen     = 0;
+                for(Person p : snapshot)
+                {
+                    seen += p == null ? 0 : 1;
+                }
+                if(seen != snapshot.size() || snapshot.size() < previous)
+                {
+                    badSnapshots.incrementAndGet();
+                }
+                previous = snapshot.size();
+                snapshots.incrementAndGet();
+            }
+        });
+
+        start = System.nanoTime();
+        reporter.start();
+        threads.forEach(Thread::start);
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+        elapsed = System.nanoTime() - start;
+        done.set(true);
+        reporter.join();
+
+        contested = PER_THREAD / 1000 + (PER_THREAD % 1000 == 0 ? 0 : 1);
+        count     = school.countAliveBornBefore(Date.ofEpochDay(20_000));
+
+        if(count != THREADS * PER_THREAD + contested || badSnapshots.get() != 0 || snapshots.get() == 0 ||
+           rejected.get() != (THREADS - 1) * contested ||
+           school.countTeachersWithSpecialty("stress") != THREADS * PER_THREAD / 2 ||
+           school.findByFirstNamePrefix("s3").size() != PER_THREAD / 2)
+        {
+            System.out.println("Concurrent registration is wrong: code 1 " + count + " " + rejected.get());
+            return;
+        }
+
+        for(int t = 0; t < THREADS; t++)
+        {
+            for(int i = 0; i < PER_THREAD; i += 2)
+            {
+                Student s;
+                s = school.findStudent(String.format("S%d%07d", t, i));
+
+                if(s == null || !s.getName().getLast().equals("n" + i))
+                {
+                    System.out.println("Concurrent registration is wrong: code 2 S" + t + i);
+                    return;
+                }
+            }
+        }
+
+        System.out.printf("Concurrent registration looks good: %,d people from %d threads in %d ms, %d snapshots read%n",
+                          count, THREADS, elapsed / 1_000_000, snapshots.get());
+    }
+}
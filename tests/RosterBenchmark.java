@@ -0,0 +1,935 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+public class RosterBenchmark
+{
+    private static final int    WARMUP_ROUNDS;
+    private static final int    MEASURED_ROUNDS;
+    private static final Random RANDOM;
+    private static final long   SNAPSHOT_LOAD_TARGET_MS; // an indexed school of 2M people
+    private static       long   sink;
+
+    static
+    {
+        WARMUP_ROUNDS           = 5;
+        MEASURED_ROUNDS         = 5;
+        RANDOM                  = new Random(42);
+        SNAPSHOT_LOAD_TARGET_MS = 1_000;
+        sink                    = 0;
+    }
+
+    public static String randomWord()
+    {
+        char[] chars;
+        chars = new char[3 + RANDOM.nextInt(8)];
+
+        for(int i = 0; i < chars.length; i++)
+        {
+            chars[i] = (char) ((RANDOM.nextBoolean() ? 'a' : 'A') + RANDOM.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    public static List<Name> randomNames(final int count)
+    {
+        List<Name> names;
+        names = new ArrayList<>(count);
+
+        for(int i = 0; i < count; i++)
+        {
+            names.add(new Name(randomWord(), randomWord()));
+        }
+        return names;
+    }
+
+    public static void report(final String label, final long nanos, final long operations)
+    {
+        System.out.printf("%-48s %10.1f ns/op%n", label, (double) nanos / operations);
+    }
+
+    public static void benchmarkName()
+    {
+        int        count;
+        long       best;
+
+        count = 200_000;
+        best  = Long.MAX_VALUE;
+
+        // Before: every call on a fresh Name pays for strip/lowercase/concat, as every call did before caching
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            List<Name> names;
+            long       start;
+
+            names = randomNames(count);
+            start = System.nanoTime();
+            for(Name n : names)
+            {
+                sink += n.getPrettyName().length() + n.getInitials().length();
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        report("Name pretty+initials, first call (uncached)", best, count);
+
+        // After: repeated calls return the cached strings
+        List<Name> names;
+        names = randomNames(count);
+        names.forEach(Name::getPrettyName);
+        names.forEach(Name::getInitials);
+        best = Long.MAX_VALUE;
+
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            long start;
+            start = System.nanoTime();
+            for(Name n : names)
+            {
+                sink += n.getPrettyName().length() + n.getInitials().length();
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        report("Name pretty+initials, repeated call (cached)", best, count);
+    }
+
+    public static School randomSchool(final int count)
+    {
+        return randomSchool(count, new ListRoster());
+    }
+
+    public static School randomSchool(final int count, final Roster roster)
+    {
+        School school;
+        school = new School(roster);
+
+        for(int i = 0; i < count; i++)
+        {
+            Person p;
+            p = new Person(Date.ofEpochDay(-20_000 + RANDOM.nextInt(40_000)), new Name(randomWord(), randomWord()));
+
+            if(RANDOM.nextInt(4) == 0)
+            {
+                p.die(p.getDateOfBirth().plusDays(RANDOM.nextInt(30_000)));
+            }
+            school.register(p);
+        }
+        return school;
+    }
+
+    public static List<Person> randomPeople(final int count)
+    {
+        List<Person> people;
+        people = new ArrayList<>(count);
+
+        for(int i = 0; i < count; i++)
+        {
+            Date born;
+            born = Date.ofEpochDay(-20_000 + RANDOM.nextInt(40_000));
+
+            if(i % 2 == 0)
+            {
+                people.add(new Student(born, new Name(randomWord(), randomWord()), String.format("B%08d", i)));
+            }
+            else
+            {
+                people.add(new Teacher(born, new Name(randomWord(), randomWord()), "subject " + i % 50));
+            }
+        }
+        return people;
+    }
+
+    public static void benchmarkBulkRegistration()
+    {
+        int          count;
+        List<Person> intake;
+        long         oneByOne;
+        long         batched;
+
+        count    = 500_000;
+        intake   = randomPeople(count);
+        oneByOne = Long.MAX_VALUE;
+        batched  = Long.MAX_VALUE;
+
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            School school;
+            long   start;
+
+            school = new School();
+            start  = System.nanoTime();
+            for(Person p : intake)
+            {
+                school.register(p);
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                oneByOne = Math.min(oneByOne, System.nanoTime() - start);
+            }
+
+            school = new School();
+            start  = System.nanoTime();
+            sink += school.registerAll(intake).getRegistered();
+            if(round >= WARMUP_ROUNDS)
+            {
+                batched = Math.min(batched, System.nanoTime() - start);
+            }
+        }
+        report("Register 500k one at a time", oneByOne, count);
+        report("Register 500k with registerAll", batched, count);
+    }
+
+    public static void benchmarkPrintRoster()
+            throws IOException
+    {
+        int         count;
+        School      school;
+        File        file;
+        PrintStream originalOut;
+        long        perPerson;
+        long        buffered;
+
+        count       = 300_000;
+        school      = randomSchool(count);
+        file        = File.createTempFile("roster", ".txt");
+        originalOut = System.out;
+        perPerson   = Long.MAX_VALUE;
+        buffered    = Long.MAX_VALUE;
+        file.deleteOnExit();
+
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            long start;
+
+            // Set up like the JVM's own System.out: a 128-byte buffer that flushes on every println
+            try(PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 128), true))
+            {
+                System.setOut(out);
+                start = System.nanoTime();
+                school.snapshot().forEach(System.out::println);
+                out.flush();
+                System.setOut(originalOut);
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                perPerson = Math.min(perPerson, System.nanoTime() - start);
+            }
+
+            try(PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 128), true))
+            {
+                System.setOut(out);
+                start = System.nanoTime();
+                school.printRoster();
+                System.setOut(originalOut);
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                buffered = Math.min(buffered, System.nanoTime() - start);
+            }
+        }
+        report("Print 300k roster, println per person", perPerson, count);
+        report("Print 300k roster, buffered printRoster", buffered, count);
+    }
+
+    public static void benchmarkAgesReport()
+            throws IOException
+    {
+        int         count;
+        School      school;
+        File        file;
+        PrintStream originalOut;
+        long        lines;
+        long        printf;
+        long        engine;
+
+        count       = 100_000;
+        school      = randomSchool(count);
+        file        = File.createTempFile("ages", ".txt");
+        originalOut = System.out;
+        lines       = 0;
+        printf      = Long.MAX_VALUE;
+        engine      = Long.MAX_VALUE;
+        file.deleteOnExit();
+
+        for(Person p : school.snapshot())
+        {
+            lines += (p.isAlive() ? 2022 : p.getDateOfDeath().getYear()) - p.getDateOfBirth().getYear() + 1;
+        }
+
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            long start;
+
+            // Before: one printf per year lived, through a stream set up like the JVM's System.out
+            try(PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 128), true))
+            {
+                start = System.nanoTime();
+                for(Person p : school.snapshot())
+                {
+                    int born;
+                    int last;
+
+                    born = p.getDateOfBirth().getYear();
+                    last = p.isAlive() ? 2022 : p.getDateOfDeath().getYear();
+                    for(int year = born; year <= last; year++)
+                    {
+                        out.printf("%s: %d (age %d)%n", p.getName().getPrettyName(), year, year - born);
+                    }
+                }
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                printf = Math.min(printf, System.nanoTime() - start);
+            }
+
+            try(PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 128), true))
+            {
+                System.setOut(out);
+                start = System.nanoTime();
+                school.printAgesAndYears();
+                System.setOut(originalOut);
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                engine = Math.min(engine, System.nanoTime() - start);
+            }
+        }
+        report("Ages and years, printf per line", printf, lines);
+        report("Ages and years, parallel report engine", engine, lines);
+        System.out.printf("  %,d lines for %,d people on %d processors%n", lines, count,
+                          Runtime.getRuntime().availableProcessors());
+    }
+
+    public static void benchmarkAgesInYear()
+            throws IOException
+    {
+        String[] labels;
+        School[] schools;
+
+        labels  = new String[]{ "Ages in 1990, list roster", "Ages in 1990, columnar roster",
+                                "Ages in 1990, off-heap roster" };
+        schools = new School[]{ randomSchool(1_000_000, new ListRoster()),
+                                randomSchool(1_000_000, new ColumnarRoster()),
+                                randomSchool(1_000_000, new OffHeapRoster()) };
+
+        for(int i = 0; i < schools.length; i++)
+        {
+            long best;
+            best = Long.MAX_VALUE;
+
+            for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+            {
+                long start;
+                start = System.nanoTime();
+                sink += schools[i].agesInYear(1990)[round];
+
+                if(round >= WARMUP_ROUNDS)
+                {
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+            }
+            report(labels[i] + " (1M)", best, 1_000_000);
+        }
+
+        // Before: the only way to see one year was the full report, which costs one line per year lived
+        School        sample;
+        StringBuilder everything;
+        long          start;
+        long          elapsed;
+
+        sample     = randomSchool(100_000);
+        everything = new StringBuilder();
+        start      = System.nanoTime();
+        sample.printAgesAndYears(Integer.MIN_VALUE, Integer.MAX_VALUE, everything);
+        sink += everything.toString().lines().filter(line->line.contains(": 1990 (")).count();
+        elapsed = System.nanoTime() - start;
+        report("Ages in 1990 by filtering the full report (100k)", elapsed, 100_000);
+    }
+
+    public static void benchmarkSaveDetails()
+            throws IOException
+    {
+        int              count;
+        School           school;
+        File             file;
+        RosterSerializer serializer;
+        long             writer;
+        long             channel;
+
+        count      = 300_000;
+        school     = randomSchool(count);
+        file       = File.createTempFile("details", ".txt");
+        serializer = new RosterSerializer();
+        writer     = Long.MAX_VALUE;
+        channel    = Long.MAX_VALUE;
+        file.deleteOnExit();
+
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            long start;
+
+            // Before: a line per person through BufferedWriter and FileWriter in the platform charset
+            start = System.nanoTime();
+            try(BufferedWriter out = new BufferedWriter(new FileWriter(file)))
+            {
+                for(Person p : school.snapshot())
+                {
+                    StringBuilder string;
+                    string = new StringBuilder();
+
+                    string.append(p.getName().getPrettyName()).append(" (").append(p.getName().getInitials())
+                          .append(") was born on ").append(p.getDateOfBirth().getDayOfTheWeek()).append(' ');
+                    p.getDateOfBirth().appendYyyyMmDd(string);
+                    if(!p.isAlive())
+                    {
+                        string.append(" and died on ").append(p.getDateOfDeath().getDayOfTheWeek()).append(' ');
+                        p.getDateOfDeath().appendYyyyMmDd(string);
+                    }
+                    string.append('.');
+
+                    out.append(string);
+                    out.newLine();
+                }
+            }
+            if(round >= WARMUP_ROUNDS)
+            {
+                writer = Math.min(writer, System.nanoTime() - start);
+            }
+
+            start = System.nanoTime();
+            serializer.write(school.snapshot(), file.toPath());
+            if(round >= WARMUP_ROUNDS)
+            {
+                channel = Math.min(channel, System.nanoTime() - start);
+            }
+        }
+        report("Save 300k details, BufferedWriter", writer, count);
+        report("Save 300k details, serializer on a FileChannel", channel, count);
+    }
+
+    public static void benchmarkParallelSave()
+            throws IOException
+    {
+        int              count;
+        School           school;
+        File             file;
+        RosterSerializer sequential;
+        long             best;
+
+        count      = 1_000_000;
+        school     = randomSchool(count, new ChunkedRoster());
+        file       = File.createTempFile("details", ".txt");
+        sequential = new RosterSerializer();
+        best       = Long.MAX_VALUE;
+        file.deleteOnExit();
+
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            long start;
+
+            start = System.nanoTime();
+            sequential.write(school.snapshot(), file.toPath());
+            if(round >= WARMUP_ROUNDS)
+            {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        report("Save 1M details, sequential serializer", best, count);
+
+        // Scaling needs the cores; on a machine with fewer, the larger pools only show the coordination overhead
+        for(int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2)
+        {
+            ForkJoinPool             pool;
+            ParallelRosterSerializer parallel;
+
+            pool     = new ForkJoinPool(threads);
+            parallel = new ParallelRosterSerializer(new DetailsFormat(), pool);
+            best     = Long.MAX_VALUE;
+
+            for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+            {
+                long start;
+
+                start = System.nanoTime();
+                parallel.write(school.snapshot(), file.toPath());
+                if(round >= WARMUP_ROUNDS)
+                {
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+            }
+            pool.shutdown();
+            report("Save 1M details, parallel serializer on " + threads + " threads", best, count);
+        }
+    }
+
+    public static void benchmarkAsyncSave()
+    {
+        int                     count;
+        School                  school;
+        long                    start;
+        long                    sync;
+        long                    returned;
+        long                    finished;
+        int                     registered;
+        CompletableFuture<Void> save;
+
+        count  = 1_000_000;
+        school = randomSchool(count, new ChunkedRoster());
+
+        start = System.nanoTime();
+        school.saveDetails();
+        sync  = System.nanoTime() - start;
+
+        // Keep registering until the background save is done
+        start      = System.nanoTime();
+        save       = school.saveDetailsAsync();
+        returned   = System.nanoTime() - start;
+        registered = 0;
+        while(!save.isDone())
+        {
+            school.register(new Person(Date.ofEpochDay(RANDOM.nextInt(20_000)), new Name(randomWord(), randomWord())));
+            registered++;
+        }
+        save.join();
+        finished = System.nanoTime() - start;
+
+        System.out.printf("Save 1M details: blocking %d ms; async returned in %d us, finished in %d ms while %,d " +
+                          "people were registered%n", sync / 1_000_000, returned / 1_000, finished / 1_000_000,
+                          registered);
+    }
+
+    public static void benchmarkCompressedExport()
+            throws IOException
+    {
+        int              count;
+        School           school;
+        File             plain;
+        File             compressed;
+        RosterSerializer serializer;
+        long             write;
+        long             writeCompressed;
+        long             writeFast;
+        long             fastLength;
+        long             read;
+
+        count           = 1_000_000;
+        school          = randomSchool(count, new ChunkedRoster());
+        plain           = File.createTempFile("details", ".txt");
+        compressed      = File.createTempFile("details", ".txt.gz");
+        serializer      = new RosterSerializer();
+        write           = Long.MAX_VALUE;
+        writeCompressed = Long.MAX_VALUE;
+        writeFast       = Long.MAX_VALUE;
+        fastLength      = 0;
+        read            = Long.MAX_VALUE;
+        plain.deleteOnExit();
+        compressed.deleteOnExit();
+
+        for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            long start;
+            long plainTime;
+            long compressedTime;
+            long fastTime;
+            long readTime;
+
+            start     = System.nanoTime();
+            serializer.write(school.snapshot(), plain.toPath());
+            plainTime = System.nanoTime() - start;
+
+            start          = System.nanoTime();
+            CompressedDetails.write(school.snapshot(), serializer, compressed.toPath());
+            compressedTime = System.nanoTime() - start;
+
+            start      = System.nanoTime();
+            CompressedDetails.write(school.snapshot(), serializer, compressed.toPath(), Deflater.BEST_SPEED);
+            fastTime   = System.nanoTime() - start;
+            fastLength = compressed.length();
+
+            CompressedDetails.write(school.snapshot(), serializer, compressed.toPath());
+
+            start = System.nanoTime();
+            try(Stream<String> lines = CompressedDetails.lines(compressed.toPath()))
+            {
+                sink += lines.count();
+            }
+            readTime = System.nanoTime() - start;
+
+            if(round >= WARMUP_ROUNDS)
+            {
+                write           = Math.min(write, plainTime);
+                writeCompressed = Math.min(writeCompressed, compressedTime);
+                writeFast       = Math.min(writeFast, fastTime);
+                read            = Math.min(read, readTime);
+            }
+        }
+        report("Save 1M details, uncompressed", write, count);
+        report("Save 1M details, GZIP in the same pass", writeCompressed, count);
+        report("Save 1M details, GZIP at BEST_SPEED", writeFast, count);
+        report("Read 1M compressed details line by line", read, count);
+        System.out.printf("Details file: %,d bytes uncompressed, %,d bytes compressed (%.1fx, %.0f MB/s of text), " +
+                          "%,d bytes at BEST_SPEED (%.1fx, %.0f MB/s)%n", plain.length(), compressed.length(),
+                          (double) plain.length() / compressed.length(), plain.length() / (writeCompressed / 1e9) / 1e6,
+                          fastLength, (double) plain.length() / fastLength, plain.length() / (writeFast / 1e9) / 1e6);
+    }
+
+    public static void benchmarkIncrementalExport()
+            throws IOException
+    {
+        int                 count;
+        School              school;
+        File                file;
+        IncrementalExporter exporter;
+        long                start;
+        long                full;
+        long                incremental;
+        int                 written;
+
+        count    = 1_000_000;
+        school   = randomSchool(count);
+        file     = File.createTempFile("details", ".txt");
+        exporter = new IncrementalExporter(file.toPath(), new DetailsFormat());
+        file.deleteOnExit();
+
+        start = System.nanoTime();
+        exporter.compact(school.snapshot());
+        full = System.nanoTime() - start;
+
+        // A typical 15 minutes: a few dozen deaths and registrations
+        for(int i = 0; i < 30; i++)
+        {
+            Person p;
+            p = school.snapshot().get(RANDOM.nextInt(count));
+
+            if(p.isAlive())
+            {
+                p.die(p.getDateOfBirth().plusDays(30_000));
+            }
+            school.register(new Person(Date.ofEpochDay(RANDOM.nextInt(20_000)), new Name(randomWord(), randomWord())));
+        }
+        start       = System.nanoTime();
+        written     = exporter.save(school.snapshot());
+        incremental = System.nanoTime() - start;
+
+        System.out.printf("Full rewrite of 1M people: %d ms; incremental save of %d records: %d ms (%,d bytes file)%n",
+                          full / 1_000_000, written, incremental / 1_000_000, file.length());
+    }
+
+    public static void benchmarkBinarySnapshot()
+            throws IOException
+    {
+        int          count;
+        List<String> words;
+        List<Person> people;
+        School       school;
+        File         file;
+        long         start;
+        long         save;
+        long         roster;
+        long         load;
+        School       loaded;
+
+        count  = 2_000_000;
+        words  = new ArrayList<>();
+        people = new ArrayList<>(count);
+        school = new School(new OffHeapRoster());
+        file   = File.createTempFile("roster", ".bin");
+        file.deleteOnExit();
+
+        // Names drawn from a pool of 5,000 words, as real rosters repeat names
+        for(int i = 0; i < 5_000; i++)
+        {
+            words.add(randomWord());
+        }
+        for(int i = 0; i < count; i++)
+        {
+            Date born;
+            Name name;
+
+            born = Date.ofEpochDay(-20_000 + RANDOM.nextInt(40_000));
+            name = new Name(words.get(RANDOM.nextInt(words.size())), words.get(RANDOM.nextInt(words.size())));
+            people.add(i % 2 == 0 ? new Student(born, name, String.format("B%08d", i)) :
+                       new Teacher(born, name, "subject " + i % 50));
+        }
+        school.registerAll(people);
+        people = null;
+
+        start = System.nanoTime();
+        school.saveSnapshot(file.toPath());
+        save  = System.nanoTime() - start;
+
+        // The records alone, then the whole school with its name, specialty and student number indexes
+        start = System.nanoTime();
+        try(RosterFile snapshot = RosterFile.open(file.toPath()))
+        {
+            sink += snapshot.readRoster().size();
+        }
+        roster = System.nanoTime() - start;
+
+        start  = System.nanoTime();
+        loaded = School.loadSnapshot(file.toPath());
+        load   = System.nanoTime() - start;
+        sink  += loaded.snapshot().size();
+
+        System.out.printf("Binary snapshot of %,d people (%,d bytes): save %d ms, open and read roster %d ms, " +
+                          "load indexed school %d ms%n", count, file.length(), save / 1_000_000,
+                          roster / 1_000_000, load / 1_000_000);
+
+        if(load / 1_000_000 >= SNAPSHOT_LOAD_TARGET_MS)
+        {
+            throw new AssertionError("loading an indexed school took " + load / 1_000_000 + " ms, target " +
+                                     SNAPSHOT_LOAD_TARGET_MS + " ms");
+        }
+    }
+
+    public static void benchmarkNameIndex()
+    {
+        School   school;
+        String[] prefixes;
+        long     start;
+        long     elapsed;
+
+        school   = randomSchool(400_000);
+        prefixes = new String[10_000];
+
+        for(int i = 0; i < prefixes.length; i++)
+        {
+            prefixes[i] = randomWord().substring(0, 1 + i % 3);
+        }
+        for(int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            for(String prefix : prefixes)
+            {
+                sink += school.findByLastNamePrefix(prefix, 20).size();
+            }
+        }
+
+        start = System.nanoTime();
+        for(String prefix : prefixes)
+        {
+            sink += school.findByLastNamePrefix(prefix, 20).size();
+        }
+        elapsed = System.nanoTime() - start;
+        report("Type-ahead last name prefix, 400k people", elapsed, prefixes.length);
+    }
+
+    public static String misspell(final String word)
+    {
+        char[] chars;
+        int    position;
+
+        chars    = word.toCharArray();
+        position = 1 + RANDOM.nextInt(chars.length - 1);
+
+        chars[position] = "aeiouy".charAt(RANDOM.nextInt(6));
+        return new String(chars);
+    }
+
+    public static void benchmarkDuplicateDetection()
+    {
+        int      count;
+        int      injected;
+        String[] firsts;
+        String[] lasts;
+        School   school;
+        long     start;
+        long     elapsed;
+        int      truePositives;
+        int      falsePositives;
+
+        count    = 500_000;
+        injected = 5_000;
+        firsts   = new String[2_000];
+        lasts    = new String[5_000];
+        school   = new School();
+
+        for(int i = 0; i < firsts.length; i++)
+        {
+            firsts[i] = randomWord();
+        }
+        for(int i = 0; i < lasts.length; i++)
+        {
+            lasts[i] = randomWord();
+        }
+
+        school.enableDuplicateDetection();
+        start = System.nanoTime();
+        for(int i = 0; i < count; i++)
+        {
+            Date born;
+            Name name;
+
+            born = Date.ofEpochDay(RANDOM.nextInt(365 * 20));
+            name = new Name(firsts[RANDOM.nextInt(firsts.length)], lasts[RANDOM.nextInt(lasts.length)]);
+            school.register(new Person(born, name));
+
+            // Every 100th person is registered again with a one-letter misspelling of the last name
+            if(i % (count / injected) == 0)
+            {
+                school.register(new Student(born, new Name(name.getFirst(), misspell(name.getLast())),
+                                             String.format("D%08d", i)));
+            }
+        }
+        elapsed = System.nanoTime() - start;
+
+        truePositives  = 0;
+        falsePositives = 0;
+        for(DuplicateMatch match : school.getSuspectedDuplicates())
+        {
+            if(match.getRegistered() instanceof Student)
+            {
+                truePositives++;
+            }
+            else
+            {
+                falsePositives++;
+            }
+        }
+        report("Register with duplicate detection", elapsed, count + injected);
+        System.out.printf("  %,d registrations/minute; caught %d of %d injected duplicates (%.1f%%); " +
+                          "%d false positives (%.3f%% of registrations)%n",
+                          (long) ((count + injected) * 60e9 / elapsed), truePositives, injected,
+                          100.0 * truePositives / injected, falsePositives, 100.0 * falsePositives / count);
+    }
+
+    public static void benchmarkColumnarScan()
+    {
+        String[] labels;
+        School[] schools;
+
+        labels  = new String[]{ "Count alive born before, list roster", "Count alive born before, columnar roster",
+                                "Count alive born before, off-heap roster" };
+        schools = new School[]{ randomSchool(1_000_000, new ListRoster()),
+                                randomSchool(1_000_000, new ColumnarRoster()),
+                                randomSchool(1_000_000, new OffHeapRoster()) };
+
+        for(int i = 0; i < schools.length; i++)
+        {
+            long best;
+            best = Long.MAX_VALUE;
+
+            for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+            {
+                long start;
+                start = System.nanoTime();
+                sink += schools[i].countAliveBornBefore(new Date(1, 1, 1970));
+
+                if(round >= WARMUP_ROUNDS)
+                {
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+            }
+            report(labels[i] + " (1M)", best, 1_000_000);
+        }
+    }
+
+    public static void benchmarkOffHeapFootprint()
+    {
+        Roster  roster;
+        Runtime runtime;
+        long    before;
+        long    after;
+
+        roster  = new OffHeapRoster();
+        runtime = Runtime.getRuntime();
+        System.gc();
+        before = runtime.totalMemory() - runtime.freeMemory();
+
+        for(int i = 0; i < 2_000_000; i++)
+        {
+            Person p;
+            p = new Person(Date.ofEpochDay(-20_000 + RANDOM.nextInt(40_000)), new Name("first" + i % 3000,
+                                                                                     "last" + i % 7000));
+            p.die(p.getDateOfBirth().plusDays(20_000));
+            roster.add(p);
+        }
+        System.gc();
+        after = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("Off-heap roster of %,d people: heap grew by %,d KiB%n", roster.size(),
+                          (after - before) / 1024);
+    }
+
+    public static void main(final String[] args)
+            throws IOException
+    {
+        List<String> sections;
+        sections = args.length == 0 ? List.of("name", "index", "duplicates", "columnar", "offheap",
+                                                         "bulk", "print", "ages", "census", "save",
+                                                         "parallel", "async", "compressed", "incremental",
+                                                         "binary")
+                                      : List.of(args);
+
+        // Run e.g. "java RosterBenchmark columnar" to measure one section
+        for(String section : sections)
+        {
+            switch(section)
+            {
+                case "name":
+                    benchmarkName();
+                    break;
+                case "index":
+                    benchmarkNameIndex();
+                    break;
+                case "duplicates":
+                    benchmarkDuplicateDetection();
+                    break;
+                case "columnar":
+                    benchmarkColumnarScan();
+                    break;
+                case "offheap":
+                    benchmarkOffHeapFootprint();
+                    break;
+                case "bulk":
+                    benchmarkBulkRegistration();
+                    break;
+                case "print":
+                    benchmarkPrintRoster();
+                    break;
+                case "ages":
+                    benchmarkAgesReport();
+                    break;
+                case "census":
+                    benchmarkAgesInYear();
+                    break;
+                case "save":
+                    benchmarkSaveDetails();
+                    break;
+                case "parallel":
+                    benchmarkParallelSave();
+                    break;
+                case "async":
+                    benchmarkAsyncSave();
+                    break;
+                case "compressed":
+                    benchmarkCompressedExport();
+                    break;
+                case "incremental":
+                    benchmarkIncrementalExport();
+                    break;
+                case "binary":
+                    benchmarkBinarySnapshot();
+                    break;
+                default:
+                    System.out.println("unknown section " + section);
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+}
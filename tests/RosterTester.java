@@ -0,0 +1,1558 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RosterTester
+{
+    public static void testDateArithmetic()
+    {
+        LocalDate expected;
+        Date      d;
+
+        expected = LocalDate.of(1600, 1, 1);
+        d        = new Date(1, 1, 1600);
+
+        // Walk 500 years one day at a time against java.time
+        while(expected.getYear() < 2100)
+        {
+            if(d.getEpochDay() != expected.toEpochDay() ||
+               d.getYear() != expected.getYear() ||
+               d.getMonth() != expected.getMonthValue() ||
+               d.getDay() != expected.getDayOfMonth())
+            {
+                System.out.println("Date arithmetic is wrong: code 1 at " + expected);
+                return;
+            }
+            expected = expected.plusDays(1);
+            d        = d.next();
+        }
+
+        d = new Date(28, 2, 2024);
+        if(!d.plusDays(1).getYyyyMmDd().equals("2024-02-29") ||
+           !d.plusDays(366).getYyyyMmDd().equals("2025-02-28") ||
+           !d.minusDays(365 * 3).getYyyyMmDd().equals("2021-02-28") ||
+           d.daysUntil(new Date(1, 3, 2024)) != 2 ||
+           new Date(1, 3, 2024).daysUntil(d) != -2 ||
+           !Date.ofEpochDay(0).getYyyyMmDd().equals("1970-01-01"))
+        {
+            System.out.println("Date arithmetic is wrong: code 2");
+            return;
+        }
+
+        if(!new Date(31, 12, 1999).equals(Date.ofEpochDay(new Date(31, 12, 1999).getEpochDay())) ||
+           new Date(31, 12, 1999).compareTo(new Date(1, 1, 2000)) >= 0)
+        {
+            System.out.println("Date arithmetic is wrong: code 3");
+            return;
+        }
+
+        try
+        {
+            new Date(31, 12, -1).next();
+            System.out.println("Date arithmetic is wrong: code 4");
+            return;
+        }
+        catch(final IllegalArgumentException e)
+        {
+            if(!e.getMessage().equals("invalid year"))
+            {
+                System.out.println("Date arithmetic is wrong: code 5");
+                return;
+            }
+        }
+
+        System.out.println("Date arithmetic looks good");
+    }
+
+    public static void testWeekday()
+    {
+        LocalDate expected;
+        Date      d;
+
+        // Sample every 97 days over years the old century table did not cover
+        for(long epochDay = LocalDate.of(1, 1, 1).toEpochDay(); epochDay < LocalDate.of(9999, 1, 1).toEpochDay();
+            epochDay += 97)
+        {
+            expected = LocalDate.ofEpochDay(epochDay);
+            d        = new Date(expected.getDayOfMonth(), expected.getMonthValue(), expected.getYear());
+
+            if(d.getWeekday().ordinal() != expected.getDayOfWeek().ordinal() ||
+               !d.getDayOfTheWeek().equals(d.getWeekday().getDisplayName()))
+            {
+                System.out.println("Weekday is wrong: code 1 at " + expected);
+                return;
+            }
+        }
+
+        if(new Date(1, 1, 2021).getWeekday() != Weekday.FRIDAY ||
+           !new Date(30, 12, 1975).getDayOfTheWeek().equals("Tuesday"))
+        {
+            System.out.println("Weekday is wrong: code 2");
+            return;
+        }
+
+        System.out.println("Weekday looks good");
+    }
+
+    public static void testDateCache()
+    {
+        DateCache cache;
+        long      hits;
+        long      misses;
+        Date      d;
+
+        cache  = Date.getCache();
+        hits   = cache.getHits();
+        misses = cache.getMisses();
+        d      = Date.of(14, 3, 1879);
+
+        if(d != Date.of(14, 3, 1879) ||
+           d != Date.of(13, 3, 1879).next() ||
+           d != new Date(14, 3, 1879).intern() ||
+           d != Date.ofEpochDay(d.getEpochDay()) ||
+           cache.getHits() - hits < 4 ||
+           cache.getMisses() - misses < 1)
+        {
+            System.out.println("Date cache is wrong: code 1");
+            return;
+        }
+
+        if(new Person(new Date(14, 3, 1879), new Name("a", "b")).getDateOfBirth() != d)
+        {
+            System.out.println("Date cache is wrong: code 2");
+            return;
+        }
+
+        try
+        {
+            Date.of(29, 2, 2023);
+            System.out.println("Date cache is wrong: code 3");
+            return;
+        }
+        catch(final IllegalArgumentException e)
+        {
+            if(!e.getMessage().equals("invalid day of the month"))
+            {
+                System.out.println("Date cache is wrong: code 4");
+                return;
+            }
+        }
+
+        System.out.println("Date cache looks good");
+    }
+
+    public static void testDateFormat()
+    {
+        int[]         years;
+        StringBuilder sb;
+        char[]        chars;
+        ByteBuffer    bytes;
+
+        years = new int[]{ -999_999, -12, -1, 1, 9, 99, 999, 1975, 9999, 10_000, 999_999 };
+
+        for(int year : years)
+        {
+            Date   d;
+            String expected;
+
+            d        = new Date(3, 11, year);
+            expected = String.format("%04d-%02d-%02d", year, 11, 3);
+            sb       = new StringBuilder("x");
+            chars    = new char[20];
+            bytes    = ByteBuffer.allocate(20);
+
+            d.appendYyyyMmDd(sb);
+            d.writeYyyyMmDd(bytes);
+
+            if(!d.getYyyyMmDd().equals(expected) ||
+               !sb.toString().equals("x" + expected) ||
+               d.writeYyyyMmDd(chars, 1) != expected.length() + 1 ||
+               !new String(chars, 1, expected.length()).equals(expected) ||
+               !new String(bytes.array(), 0, bytes.position(), StandardCharsets.US_ASCII).equals(expected) ||
+               Date.parse(expected) != Date.of(3, 11, year) ||
+               Date.parse("[" + expected + "]", 1, expected.length() + 1) != Date.of(3, 11, year) ||
+               Date.parse(bytes.array(), 0, bytes.position()) != Date.of(3, 11, year))
+            {
+                System.out.println("Date format is wrong: code 1 for " + expected);
+                return;
+            }
+        }
+
+        for(String bad : new String[]{ "", "2021", "21-01-01", "2021-1-01", "2021-01-1", "2021/01/01", "2021-01-01x",
+                                       "-", "-0001-01-01x", "2021-0a-01" })
+        {
+            try
+            {
+                Date.parse(bad);
+                System.out.println("Date format is wrong: code 2 for " + bad);
+                return;
+            }
+            catch(final IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+
+        try
+        {
+            Date.parse("2023-02-29");
+            System.out.println("Date format is wrong: code 3");
+            return;
+        }
+        catch(final IllegalArgumentException e)
+        {
+            if(!e.getMessage().equals("invalid day of the month"))
+            {
+                System.out.println("Date format is wrong: code 4");
+                return;
+            }
+        }
+
+        System.out.println("Date format looks good");
+    }
+
+    public static void testNameDictionary()
+    {
+        NameDictionary dictionary;
+        Thread[]       threads;
+        int[][]        ids;
+        Name           n;
+
+        dictionary = new NameDictionary();
+        threads    = new Thread[8];
+        ids        = new int[threads.length][10_000];
+
+        // Every thread interns the same strings; all must agree on the ids
+        for(int t = 0; t < threads.length; t++)
+        {
+            final int[] mine;
+            mine       = ids[t];
+            threads[t] = new Thread(()->{
+                for(int i = 0; i < mine.length; i++)
+                {
+                    mine[i] = dictionary.intern("name" + i);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads)
+        {
+            try
+            {
+                thread.join();
+            }
+            catch(final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        for(int t = 1; t < threads.length; t++)
+        {
+            if(!Arrays.equals(ids[0], ids[t]))
+            {
+                System.out.println("Name dictionary is wrong: code 1");
+                return;
+            }
+        }
+        for(int i = 0; i < ids[0].length; i++)
+        {
+            if(!dictionary.resolve(ids[0][i]).equals("name" + i))
+            {
+                System.out.println("Name dictionary is wrong: code 2");
+                return;
+            }
+        }
+        if(dictionary.size() != ids[0].length)
+        {
+            System.out.println("Name dictionary is wrong: code 3");
+            return;
+        }
+
+        n = new Name(" tiGer", "woODs ");
+        if(!n.getFirst().equals(" tiGer") || !n.getLast().equals("woODs ") ||
+           n.getLastId() != new Name("eLdrick", "woODs ").getLastId() ||
+           !Name.ofIds(n.getFirstId(), n.getLastId()).getPrettyName().equals("Tiger Woods") ||
+           !n.getInitials().equals("T.W."))
+        {
+            System.out.println("Name dictionary is wrong: code 4");
+            return;
+        }
+
+        System.out.println("Name dictionary looks good");
+    }
+
+    public static School buildSchool()
+    {
+        return buildSchool(new ListRoster());
+    }
+
+    public static School buildSchool(final Roster roster)
+    {
+        School  school;
+        Student tiger;
+        Teacher einstein;
+        Teacher bruce;
+        Student ramanujan;
+
+        school    = new School(roster);
+        tiger     = new Student(new Date(30, 12, 1975), new Name("tiGer", "woODs"), "A12345678");
+        einstein  = new Teacher(new Date(14, 3, 1879), new Name("alBert", "einstEin"), "physics");
+        bruce     = new Teacher(new Date(27, 11, 1940), new Name("bRuce", "lEe"), "jeet kun do");
+        ramanujan = new Student(new Date(22, 12, 1887), new Name("srinivasa", "ramanujan"), "A88844411");
+
+        einstein.die(new Date(18, 4, 1955));
+        bruce.die(new Date(20, 7, 1973));
+        ramanujan.die(new Date(26, 4, 1920));
+
+        school.register(tiger);
+        school.register(einstein);
+        school.register(new Person(new Date(28, 6, 1971), new Name("eLon", "mUsk")));
+        school.register(bruce);
+        school.register(new Teacher(new Date(29, 1, 1954), new Name("oprAh", "winFRey"), "life"));
+        school.register(ramanujan);
+        school.register(new Person(new Date(26, 1, 1961), new Name("wAyne", "grEtzky")));
+        school.register(new Person(new Date(1, 1, 1990), new Name(" Will ", "Woodward")));
+
+        return school;
+    }
+
+    public static String prettyNames(final List<? extends Person> people)
+    {
+        StringBuilder names;
+        names = new StringBuilder();
+
+        for(Person p : people)
+        {
+            names.append(p.getName().getPrettyName()).append(';');
+        }
+        return names.toString();
+    }
+
+    public static void testNameIndex()
+    {
+        School school;
+        school = buildSchool();
+
+        if(!prettyNames(school.findByLastNamePrefix("wo")).equals("Tiger Woods;Will Woodward;") ||
+           !prettyNames(school.findByLastNamePrefix("WOODW")).equals("Will Woodward;") ||
+           !prettyNames(school.findByLastNamePrefix("W")).equals("Oprah Winfrey;Tiger Woods;Will Woodward;") ||
+           !prettyNames(school.findByLastNamePrefix("w", 2)).equals("Oprah Winfrey;Tiger Woods;") ||
+           !prettyNames(school.findByFirstNamePrefix("wI")).equals("Will Woodward;") ||
+           !school.findByLastNamePrefix("x").isEmpty() ||
+           school.findByLastNamePrefix("").size() != 8)
+        {
+            System.out.println("Name index is wrong: code 1");
+            return;
+        }
+
+        System.out.println("Name index looks good");
+    }
+
+    public static void testDuplicateDetection()
+    {
+        School school;
+
+        if(DuplicateDetector.soundex("ROBERT") != DuplicateDetector.soundex("RUPERT") ||
+           DuplicateDetector.soundex("ROBERT") != ('R' - 'A') * 1000 + 163 ||
+           DuplicateDetector.soundex("ASHCRAFT") != ('A' - 'A') * 1000 + 261 ||
+           DuplicateDetector.soundex("TYMCZAK") != ('T' - 'A') * 1000 + 522 ||
+           DuplicateDetector.soundex("PFISTER") != ('P' - 'A') * 1000 + 236 ||
+           DuplicateDetector.soundex("LEE") != ('L' - 'A') * 1000)
+        {
+            System.out.println("Duplicate detection is wrong: code 1");
+            return;
+        }
+
+        school = buildSchool();
+        school.register(new Person(new Date(30, 12, 1975), new Name("Tyger", "Wuds")));
+        if(!school.getSuspectedDuplicates().isEmpty())
+        {
+            System.out.println("Duplicate detection is wrong: code 2");
+            return;
+        }
+
+        school.enableDuplicateDetection();
+        school.register(new Person(new Date(30, 12, 1975), new Name("tiger", "Woodz")));
+        school.register(new Person(new Date(31, 12, 1975), new Name("Tiger", "Woods")));
+        school.register(new Person(new Date(30, 12, 1975), new Name("Kevin", "Woods")));
+        school.register(new Person(new Date(1, 1, 1990), new Name("William", "Woodward")));
+
+        if(school.getSuspectedDuplicates().size() != 3 ||
+           !school.getSuspectedDuplicates().get(0).toString().equals("Tiger Woodz may duplicate Tiger Woods") ||
+           !school.getSuspectedDuplicates().get(1).toString().equals("Tiger Woodz may duplicate Tyger Wuds") ||
+           !school.getSuspectedDuplicates().get(2).toString().equals("William Woodward may duplicate Will Woodward"))
+        {
+            System.out.println("Duplicate detection is wrong: code 3 " + school.getSuspectedDuplicates());
+            return;
+        }
+
+        System.out.println("Duplicate detection looks good");
+    }
+
+    public static void testStudentNumberIndex()
+    {
+        School             school;
+        boolean[]          failing;
+        StudentNumberIndex index;
+
+        school = buildSchool();
+
+        if(!school.findStudent("A12345678").getName().getPrettyName().equals("Tiger Woods") ||
+           !school.findStudent("A88844411").getName().getPrettyName().equals("Srinivasa Ramanujan") ||
+           school.findStudent("A00000000") != null ||
+           school.findStudent("short") != null ||
+           school.findStudent(null) != null)
+        {
+            System.out.println("Student number index is wrong: code 1");
+            return;
+        }
+
+        try
+        {
+            school.register(new Student(new Date(1, 1, 2000), new Name("copy", "cat"), "A12345678"));
+            System.out.println("Student number index is wrong: code 2");
+            return;
+        }
+        catch(final IllegalPersonException e)
+        {
+            if(!e.getMessage().equals("duplicate student number") || school.findByLastNamePrefix("cat").size() != 0)
+            {
+                System.out.println("Student number index is wrong: code 3");
+                return;
+            }
+        }
+
+        // Enough students to make the index grow several times
+        for(int i = 0; i < 10_000; i++)
+        {
+            school.register(new Student(new Date(1, 1, 2000), new Name("s", "s"), String.format("B%08d", i)));
+        }
+        for(int i = 0; i < 10_000; i++)
+        {
+            if(!school.findStudent(String.format("B%08d", i)).getStudentNumber().equals(String.format("B%08d", i)))
+            {
+                System.out.println("Student number index is wrong: code 4");
+                return;
+            }
+        }
+
+        try
+        {
+            new Student(new Date(1, 1, 2000), new Name("a", "b"), "A1234567\u00e9");
+            System.out.println("Student number index is wrong: code 5");
+            return;
+        }
+        catch(final IllegalPersonException e)
+        {
+            // expected: student numbers are ASCII
+        }
+
+        // A registration whose storage fails gives its number back
+        failing = new boolean[]{true};
+        school  = new School(new ListRoster()
+        {
+            @Override
+            public int add(final Person p)
+            {
+                if(failing[0])
+                {
+                    throw new OutOfMemoryError("simulated");
+                }
+                return super.add(p);
+            }
+        });
+        try
+        {
+            school.register(new Student(new Date(1, 1, 2000), new Name("first", "try"), "C00000001"));
+            System.out.println("Student number index is wrong: code 6");
+            return;
+        }
+        catch(final OutOfMemoryError e)
+        {
+            failing[0] = false;
+        }
+        school.register(new Student(new Date(1, 1, 2000), new Name("second", "try"), "C00000001"));
+        if(!school.findStudent("C00000001").getName().getFirst().equals("second"))
+        {
+            System.out.println("Student number index is wrong: code 7");
+            return;
+        }
+
+        // Releasing keys in the middle of probe runs must keep the keys after them reachable
+        index = new StudentNumberIndex();
+        for(long key = 0; key < 5_000; key++)
+        {
+            index.reserve(key);
+        }
+        for(long key = 0; key < 5_000; key += 2)
+        {
+            index.release(key);
+        }
+        for(long key = 1; key < 5_000; key += 2)
+        {
+            index.bind(key, (int) key);
+        }
+        index.release(1);
+        for(long key = 0; key < 5_000; key++)
+        {
+            if(index.get(key) != (key % 2 == 0 ? -1 : (int) key) || !index.reserve(0) || index.size() != 2_501)
+            {
+                System.out.println("Student number index is wrong: code 8 at " + key);
+                return;
+            }
+            index.release(0);
+        }
+
+        System.out.println("Student number index looks good");
+    }
+
+    public static void testStudentNumberEncoding()
+    {
+        String[]      numbers;
+        School        school;
+        List<Student> range;
+
+        numbers = new String[]{ " 0000000 ", "A00000000", "A00000001", "A12345678", "B00000000", "a00000000",
+                                "~~~~~~~~~" };
+
+        for(int i = 0; i < numbers.length; i++)
+        {
+            long code;
+            code = Student.encodeStudentNumber(numbers[i]);
+
+            if(code < 0 || !Student.decodeStudentNumber(code).equals(numbers[i]) ||
+               (i > 0 && Student.encodeStudentNumber(numbers[i - 1]) >= code))
+            {
+                System.out.println("Student number encoding is wrong: code 1 for " + numbers[i]);
+                return;
+            }
+        }
+
+        school = buildSchool();
+        for(int i = 0; i < 100; i++)
+        {
+            school.register(new Student(new Date(1, 1, 2000), new Name("s", "s"), String.format("C%08d", 99 - i)));
+        }
+        range = school.findStudentsInRange("C00000010", "C00000019");
+
+        if(range.size() != 10 || !range.get(0).getStudentNumber().equals("C00000010") ||
+           !range.get(9).getStudentNumber().equals("C00000019") ||
+           school.findStudentsInRange("A00000000", "A99999999").size() != 2 ||
+           school.findStudent("C00000042").getStudentNumberCode() != Student.encodeStudentNumber("C00000042"))
+        {
+            System.out.println("Student number encoding is wrong: code 2");
+            return;
+        }
+
+        System.out.println("Student number encoding looks good");
+    }
+
+    public static void testSpecialtyIndex()
+    {
+        School school;
+        school = buildSchool();
+
+        school.register(new Teacher(new Date(1, 1, 1980), new Name("ada", "lovelace"), "Computer  Science"));
+        school.register(new Teacher(new Date(1, 1, 1981), new Name("alan", "turing"), " COMPUTER SCIENCE"));
+
+        if(school.countTeachersWithSpecialty("computer science") != 2 ||
+           !prettyNames(school.findTeachersBySpecialty("Computer Science")).equals("Ada Lovelace;Alan Turing;") ||
+           school.countTeachersWithSpecialty("math") != 0 ||
+           !school.findTeachersBySpecialty("math").isEmpty() ||
+           !school.getSpecialtyCounts().toString().equals("{COMPUTER SCIENCE=2, JEET KUN DO=1, LIFE=1, PHYSICS=1}"))
+        {
+            System.out.println("Specialty index is wrong: code 1 " + school.getSpecialtyCounts());
+            return;
+        }
+
+        System.out.println("Specialty index looks good");
+    }
+
+    public static void testRegisterAll()
+    {
+        School             expected;
+        Roster[]           rosters;
+        List<Person>       batch;
+        RegistrationReport report;
+        School             school;
+        boolean[]          failing;
+
+        expected = buildSchool();
+        expected.enableDuplicateDetection();
+        expected.register(new Person(new Date(1, 1, 1990), new Name("William", "Woodword")));
+
+        rosters = new Roster[]{ new ListRoster(), new ColumnarRoster(), new ChunkedRoster() };
+        for(Roster roster : rosters)
+        {
+            school = new School(roster);
+            school.enableDuplicateDetection();
+            school.register(new Student(new Date(30, 12, 1975), new Name("tiGer", "woODs"), "A12345678"));
+
+            batch = new ArrayList<>();
+            for(Person p : expected.findByLastNamePrefix(""))
+            {
+                batch.add(p);
+            }
+            batch.add(1, null);
+            batch.add(new Student(new Date(1, 1, 2000), new Name("x", "y"), "A88844411"));
+
+            report = school.registerAll(batch.stream());
+
+            if(report.getRegistered() != 8 || report.getRejections().size() != 3 ||
+               !report.getRejections().toString().equals("[#1: cannot register a non-person, #7: duplicate student " +
+                                                         "number, #10: duplicate student number]") ||
+               report.isComplete() ||
+               school.findStudent("A88844411") == null || school.findStudent("A12345678") == null ||
+               !prettyNames(school.findByLastNamePrefix("wo")).equals(
+                       prettyNames(expected.findByLastNamePrefix("wo"))) ||
+               school.countTeachersWithSpecialty("physics") != 1 || school.countTeachersWithSpecialty("life") != 1 ||
+               !school.getSuspectedDuplicates().toString().equals(expected.getSuspectedDuplicates().toString()))
+            {
+                System.out.println("Bulk registration is wrong: code 1 " + report.getRejections() + " " +
+                                   school.getSuspectedDuplicates());
+                return;
+            }
+        }
+
+        report = new School().registerAll(List.of());
+        if(report.getRegistered() != 0 || !report.isComplete())
+        {
+            System.out.println("Bulk registration is wrong: code 2");
+            return;
+        }
+
+        // A batch whose storage fails gives all its numbers back, so the same batch can be registered again
+        failing = new boolean[]{true};
+        school  = new School(new ListRoster()
+        {
+            @Override
+            public int addAll(final List<? extends Person> people)
+            {
+                if(failing[0])
+                {
+                    throw new OutOfMemoryError("simulated");
+                }
+                return super.addAll(people);
+            }
+        });
+        batch = new ArrayList<>();
+        for(int i = 0; i < 1_000; i++)
+        {
+            batch.add(new Student(new Date(1, 1, 2000), new Name("s", "s"), String.format("D%08d", i)));
+        }
+        try
+        {
+            school.registerAll(batch);
+            System.out.println("Bulk registration is wrong: code 3");
+            return;
+        }
+        catch(final OutOfMemoryError e)
+        {
+            failing[0] = false;
+        }
+        report = school.registerAll(batch);
+        if(report.getRegistered() != 1_000 || !report.isComplete() || school.findStudent("D00000999") == null)
+        {
+            System.out.println("Bulk registration is wrong: code 4 " + report);
+            return;
+        }
+
+        System.out.println("Bulk registration looks good");
+    }
+
+    public static void testSnapshot()
+    {
+        School school;
+        Roster snapshot;
+        String before;
+
+        school   = buildSchool(new ChunkedRoster());
+        snapshot = school.snapshot();
+        before   = roster(school);
+
+        school.register(new Person(new Date(1, 1, 2001), new Name("late", "comer")));
+
+        if(snapshot.size() != 8 || school.snapshot().size() != 9 ||
+           !snapshot.get(7).getName().getPrettyName().equals("Will Woodward") ||
+           roster(school).equals(before) || snapshot.snapshot() != snapshot)
+        {
+            System.out.println("Roster snapshot is wrong: code 1");
+            return;
+        }
+
+        int count;
+        count = 0;
+        for(Person p : snapshot)
+        {
+            count++;
+        }
+
+        try
+        {
+            snapshot.add(new Person(new Date(1, 1, 2001), new Name("x", "y")));
+            System.out.println("Roster snapshot is wrong: code 2");
+            return;
+        }
+        catch(final UnsupportedOperationException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            snapshot.get(8);
+            System.out.println("Roster snapshot is wrong: code 3");
+            return;
+        }
+        catch(final IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+
+        if(count != 8 || new ListRoster().snapshot().size() != 0)
+        {
+            System.out.println("Roster snapshot is wrong: code 4");
+            return;
+        }
+
+        System.out.println("Roster snapshot looks good");
+    }
+
+    public static void testPrintRoster()
+            throws IOException
+    {
+        School                school;
+        StringBuilder         expected;
+        StringBuilder         appended;
+        StringWriter          written;
+        ByteArrayOutputStream streamed;
+        ByteArrayOutputStream printed;
+
+        school   = buildSchool(new ChunkedRoster());
+        expected = new StringBuilder();
+        appended = new StringBuilder();
+        written  = new StringWriter();
+        streamed = new ByteArrayOutputStream();
+        printed  = new ByteArrayOutputStream();
+
+        // Enough people to fill the print buffer several times, with names outside ASCII
+        for(int i = 0; i < 20_000; i++)
+        {
+            school.register(new Teacher(Date.ofEpochDay(i), new Name("zoë" + i, "Ünal"), "física"));
+        }
+        for(Person p : school.snapshot())
+        {
+            expected.append(p).append(System.lineSeparator());
+        }
+
+        school.printRoster(appended);
+        school.printRoster(written);
+        school.printRoster(streamed);
+        school.printRoster(new PrintStream(printed, false, StandardCharsets.UTF_16LE));
+
+        // Streams are encoded in the platform charset, which may turn the accents into '?' just as println would
+        if(!appended.toString().equals(expected.toString()) || !written.toString().equals(expected.toString()) ||
+           !Arrays.equals(streamed.toByteArray(), expected.toString().getBytes(Charset.defaultCharset())) ||
+           !roster(school).equals(new String(streamed.toByteArray(), Charset.defaultCharset())))
+        {
+            System.out.println("Buffered roster printing is wrong: code 1");
+            return;
+        }
+
+        // A print stream encodes with its own charset, whatever the platform charset is
+        if(!Arrays.equals(printed.toByteArray(), expected.toString().getBytes(StandardCharsets.UTF_16LE)))
+        {
+            System.out.println("Buffered roster printing is wrong: code 2");
+            return;
+        }
+
+        System.out.println("Buffered roster printing looks good");
+    }
+
+    public static String agesAndYears(final School school)
+    {
+        ByteArrayOutputStream out;
+        PrintStream           originalOut;
+
+        out         = new ByteArrayOutputStream();
+        originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        school.printAgesAndYears();
+        System.setOut(originalOut);
+
+        return out.toString();
+    }
+
+    public static void testAgesReport()
+            throws IOException
+    {
+        School        school;
+        StringBuilder expected;
+        StringBuilder windowed;
+        StringBuilder subset;
+
+        school   = buildSchool(new ChunkedRoster());
+        expected = new StringBuilder();
+        windowed = new StringBuilder();
+        subset   = new StringBuilder();
+
+        // Enough people for several waves of parallel chunks
+        for(int i = 0; i < 10_000; i++)
+        {
+            Person p;
+            p = new Person(Date.ofEpochDay(-40_000 + 4 * i), new Name("p" + i, "q"));
+
+            if(i % 3 == 0)
+            {
+                p.die(p.getDateOfBirth().plusDays(4 * i));
+            }
+            school.register(p);
+        }
+        for(Person p : school.snapshot())
+        {
+            int born;
+            int last;
+
+            born = p.getDateOfBirth().getYear();
+            last = p.isAlive() ? 2022 : p.getDateOfDeath().getYear();
+            for(int year = born; year <= last; year++)
+            {
+                expected.append(String.format("%s: %d (age %d)%n", p.getName().getPrettyName(), year, year - born));
+            }
+        }
+
+        school.printAgesAndYears(1954, 1955, windowed);
+        new AgesReport(1954, 1955, 2022).write(school.findByLastNamePrefix("winfrey"), subset);
+
+        if(!agesAndYears(school).equals(expected.toString()) ||
+           !windowed.toString().equals(expected.toString().lines()
+                                               .filter(line->line.contains(": 1954 (") || line.contains(": 1955 ("))
+                                               .map(line->line + System.lineSeparator())
+                                               .collect(Collectors.joining())) ||
+           !windowed.toString().startsWith("Albert Einstein: 1954 (age 75)" + System.lineSeparator() +
+                                           "Albert Einstein: 1955 (age 76)" + System.lineSeparator() +
+                                           "Bruce Lee: 1954 (age 14)") ||
+           !subset.toString().equals("Oprah Winfrey: 1954 (age 0)" + System.lineSeparator() +
+                                     "Oprah Winfrey: 1955 (age 1)" + System.lineSeparator()))
+        {
+            System.out.println("Ages report is wrong: code 1");
+            return;
+        }
+
+        System.out.println("Ages report looks good");
+    }
+
+    public static void testAgesInYear()
+    {
+        Roster[] rosters;
+        School   school;
+
+        rosters = new Roster[]{ new ListRoster(), new ColumnarRoster(), new OffHeapRoster(), new ChunkedRoster() };
+        for(Roster roster : rosters)
+        {
+            StringBuilder ages;
+
+            school = buildSchool(roster);
+            ages   = new StringBuilder();
+            school.forEachAgeInYear(1955, (p, age)->ages.append(p.getName().getPrettyName()).append(' ').append(age)
+                                                          .append(';'));
+
+            if(!Arrays.equals(school.agesInYear(1950), new int[]{ -1, 71, -1, 10, -1, -1, -1, -1 }) ||
+               !Arrays.equals(school.agesInYear(1955), new int[]{ -1, 76, -1, 15, 1, -1, -1, -1 }) ||
+               !Arrays.equals(school.agesInYear(1887), new int[]{ -1, 8, -1, -1, -1, 0, -1, -1 }) ||
+               !Arrays.equals(school.agesInYear(2050), new int[]{ 75, -1, 79, -1, 96, -1, 89, 60 }) ||
+               !ages.toString().equals("Albert Einstein 76;Bruce Lee 15;Oprah Winfrey 1;"))
+            {
+                System.out.println("Ages in year is wrong: code 1 " + roster.getClass().getName() + " " + ages);
+                return;
+            }
+        }
+
+        try
+        {
+            buildSchool().agesInYear(0);
+            System.out.println("Ages in year is wrong: code 2");
+            return;
+        }
+        catch(final IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        // Validating the year must not go through the date cache
+        school = new School(new ListRoster());
+        Date.getCache().resetStatistics();
+        school.agesInYear(1234);
+        if(Date.getCache().getHits() + Date.getCache().getMisses() != 0)
+        {
+            System.out.println("Ages in year is wrong: code 3");
+            return;
+        }
+
+        System.out.println("Ages in year looks good");
+    }
+
+    public static void testSerializer()
+            throws IOException
+    {
+        School                school;
+        StringBuilder         expected;
+        Path                  file;
+        ByteArrayOutputStream channelled;
+        ByteArrayOutputStream custom;
+        Path                  parallel;
+
+        school     = buildSchool(new ChunkedRoster());
+        expected   = new StringBuilder();
+        file       = Files.createTempFile("details", ".txt");
+        channelled = new ByteArrayOutputStream();
+        custom     = new ByteArrayOutputStream();
+        parallel   = Files.createTempFile("details", ".txt");
+
+        // Enough people to fill the byte buffer several times, with one, two, three and four byte characters
+        for(int i = 0; i < 20_000; i++)
+        {
+            Person p;
+            p = new Person(Date.ofEpochDay(i - 10_000), new Name("zoë" + i, "Ōta\uD83C\uDF93学"));
+
+            if(i % 2 == 0)
+            {
+                p.die(p.getDateOfBirth().plusDays(i));
+            }
+            school.register(p);
+        }
+        for(Person p : school.snapshot())
+        {
+            expected.append(p.getName().getPrettyName()).append(" (").append(p.getName().getInitials())
+                    .append(") was born on ").append(p.getDateOfBirth().getDayOfTheWeek()).append(' ')
+                    .append(p.getDateOfBirth().getYyyyMmDd());
+            if(!p.isAlive())
+            {
+                expected.append(" and died on ").append(p.getDateOfDeath().getDayOfTheWeek()).append(' ')
+                        .append(p.getDateOfDeath().getYyyyMmDd());
+            }
+            expected.append('.').append(System.lineSeparator());
+        }
+
+        school.saveDetails(file);
+        school.saveDetails(Channels.newChannel(channelled));
+        school.saveDetailsInParallel(parallel);
+        new RosterSerializer((p, record)->record.append(p.getName().getLast()).append('\n'))
+                .write(buildSchool().snapshot(), Channels.newChannel(custom));
+
+        if(!Arrays.equals(Files.readAllBytes(file), expected.toString().getBytes(StandardCharsets.UTF_8)) ||
+           !Arrays.equals(channelled.toByteArray(), expected.toString().getBytes(StandardCharsets.UTF_8)) ||
+           !Arrays.equals(Files.readAllBytes(parallel), Files.readAllBytes(file)) ||
+           !custom.toString(StandardCharsets.UTF_8).equals("woODs\neinstEin\nmUsk\nlEe\nwinFRey\nramanujan\n" +
+                                                          "grEtzky\nWoodward\n"))
+        {
+            System.out.println("Roster serializer is wrong: code 1");
+            return;
+        }
+        Files.delete(file);
+        Files.delete(parallel);
+
+        System.out.println("Roster serializer looks good");
+    }
+
+    public static String details(final Iterable<? extends Person> roster)
+    {
+        StringBuilder lines;
+        DetailsFormat format;
+
+        lines  = new StringBuilder();
+        format = new DetailsFormat();
+        for(Person p : roster)
+        {
+            format.appendRecord(p, lines);
+        }
+        return lines.toString();
+    }
+
+    public static void testIncrementalExport()
+            throws IOException
+    {
+        School              school;
+        Path                file;
+        IncrementalExporter exporter;
+        Person              elon;
+        String              before;
+        int                 first;
+        int                 second;
+        int                 unchanged;
+        Path                other;
+
+        school   = buildSchool(new ChunkedRoster());
+        file     = Files.createTempFile("details", ".txt");
+        exporter = new IncrementalExporter(file, new DetailsFormat());
+        elon     = school.findByLastNamePrefix("musk").get(0);
+
+        first  = exporter.save(school.snapshot());
+        before = Files.readString(file);
+
+        school.register(new Person(new Date(1, 1, 2001), new Name("ada", "new")));
+        elon.die(new Date(1, 1, 2100));
+        school.register(new Person(new Date(2, 1, 2001), new Name("bob", "newer")));
+        second    = exporter.save(school.snapshot());
+        unchanged = exporter.save(school.snapshot());
+
+        // The changed person's record is appended after the existing records, then the new people in row order,
+        // each keyed with its row; reading the file back applies the later record for a row over the earlier one
+        if(first != 8 || second != 3 || unchanged != 0 ||
+           !Files.readString(file).equals(before + "\u001E2 Elon Musk (E.M.) was born on Monday 1971-06-28 and " +
+                                          "died on Friday 2100-01-01." + System.lineSeparator() +
+                                          "\u001E8 " + details(List.of(school.snapshot().get(8))) +
+                                          "\u001E9 " + details(List.of(school.snapshot().get(9)))) ||
+           !IncrementalExporter.readLatest(file).equals(details(school.snapshot()).lines()
+                                                                                   .collect(Collectors.toList())))
+        {
+            System.out.println("Incremental export is wrong: code 1 " + first + " " + second + " " + unchanged);
+            return;
+        }
+
+        exporter.compact(school.snapshot());
+        if(!Files.readString(file).equals(details(school.snapshot())))
+        {
+            System.out.println("Incremental export is wrong: code 2");
+            return;
+        }
+
+        // Two superseded records out of ten is past the compaction threshold, so the save compacts on its own
+        school.findByLastNamePrefix("new").get(0).die(new Date(1, 1, 2090));
+        school.findByLastNamePrefix("newer").get(0).die(new Date(1, 1, 2090));
+        if(exporter.save(school.snapshot()) != 2 || !Files.readString(file).equals(details(school.snapshot())))
+        {
+            System.out.println("Incremental export is wrong: code 3");
+            return;
+        }
+
+        Files.delete(file);
+        if(exporter.save(school.snapshot()) != 10 || !Files.readString(file).equals(details(school.snapshot())))
+        {
+            System.out.println("Incremental export is wrong: code 4");
+            return;
+        }
+
+        // Rosters that rebuild people from records must not report their dead as changed on every save
+        exporter = new IncrementalExporter(file, new DetailsFormat());
+        school   = buildSchool(new ColumnarRoster());
+        exporter.save(school.snapshot());
+        if(exporter.save(school.snapshot()) != 0)
+        {
+            System.out.println("Incremental export is wrong: code 5");
+            return;
+        }
+
+        // ...but a death recorded through one of their views is a change
+        school.findByLastNamePrefix("musk").get(0).die(new Date(1, 1, 2100));
+        if(exporter.save(school.snapshot()) != 1)
+        {
+            System.out.println("Incremental export is wrong: code 6");
+            return;
+        }
+        Files.delete(file);
+
+        // Two schools in one process keep separate details files and separate incremental state
+        other = Files.createTempFile("details", ".txt");
+        school.saveDetails();
+        school.register(new Person(new Date(3, 1, 2001), new Name("cy", "newest")));
+        second = new School(new ChunkedRoster(), other).saveChangedDetails();
+        if(second != 0 || Files.size(other) != 0 || school.saveChangedDetails() != 1 ||
+           !IncrementalExporter.readLatest(Path.of("people.txt")).equals(details(school.snapshot()).lines()
+                                                                                .collect(Collectors.toList())))
+        {
+            System.out.println("Incremental export is wrong: code 7");
+            return;
+        }
+        Files.delete(other);
+
+        Files.writeString(file, "Ann A. was born." + System.lineSeparator() + "\u001E5 Bob B. was born." +
+                                System.lineSeparator());
+        try
+        {
+            IncrementalExporter.readLatest(file);
+            System.out.println("Incremental export is wrong: code 8");
+            return;
+        }
+        catch(final IOException e)
+        {
+            // expected: a keyed line may only replace a row or add the next one
+        }
+
+        // Records may start with '#' or even the key prefix; neither is mistaken for a key, before or after
+        // compacting, and only the latter is keyed in a compacted file
+        school   = new School(new ListRoster(), file);
+        exporter = new IncrementalExporter(file, (p, record)->record.append(p.getName().getFirst())
+                                                                    .append(p.isAlive() ? "" : " died")
+                                                                    .append(System.lineSeparator()));
+        school.register(new Person(new Date(1, 1, 1990), new Name("#1", "hash")));
+        school.register(new Person(new Date(2, 1, 1990), new Name("\u001E0", "prefix")));
+        exporter.compact(school.snapshot());
+        if(!Files.readString(file).equals("#1" + System.lineSeparator() + "\u001E1 \u001E0" + System.lineSeparator()) ||
+           !IncrementalExporter.readLatest(file).equals(List.of("#1", "\u001E0")))
+        {
+            System.out.println("Incremental export is wrong: code 9");
+            return;
+        }
+        school.register(new Person(new Date(3, 1, 1990), new Name("#0", "hash")));
+        school.snapshot().get(0).die(new Date(1, 1, 2050));
+        school.snapshot().get(1).die(new Date(1, 1, 2050));
+        if(exporter.save(school.snapshot()) != 3 ||
+           !IncrementalExporter.readLatest(file).equals(List.of("#1 died", "\u001E0 died", "#0")) ||
+           exporter.compact(school.snapshot()) != 3 ||
+           !IncrementalExporter.readLatest(file).equals(List.of("#1 died", "\u001E0 died", "#0")))
+        {
+            System.out.println("Incremental export is wrong: code 10");
+            return;
+        }
+        Files.delete(file);
+
+        System.out.println("Incremental export looks good");
+    }
+
+    public static void testBinarySnapshot()
+            throws IOException
+    {
+        School     school;
+        School     loaded;
+        Path       file;
+        Path       broken;
+        byte[]     bytes;
+        ByteBuffer patched;
+        ListRoster twins;
+
+        school = buildSchool(new ChunkedRoster());
+        file   = Files.createTempFile("roster", ".bin");
+        broken = Files.createTempFile("broken", ".bin");
+        school.register(new Person(new Date(3, 4, 1990), new Name("zoë", "Ōta学")));
+
+        // Other spellings of a name and a specialty, between rows of the first spelling
+        school.register(new Teacher(new Date(3, 3, 1950), new Name("ann", "WOODS"), "LIFE"));
+        school.register(new Teacher(new Date(4, 4, 1951), new Name("bob", "woODs"), "life"));
+        school.saveSnapshot(file);
+        loaded = School.loadSnapshot(file);
+
+        if(!roster(loaded).equals(roster(school)) || !details(loaded.snapshot()).equals(details(school.snapshot())) ||
+           !loaded.findStudent("A88844411").toString().equals(school.findStudent("A88844411").toString()) ||
+           !prettyNames(loaded.findByLastNamePrefix("w")).equals(prettyNames(school.findByLastNamePrefix("w"))) ||
+           !prettyNames(loaded.findTeachersBySpecialty("life"))
+                   .equals(prettyNames(school.findTeachersBySpecialty("life"))) ||
+           loaded.countTeachersWithSpecialty("life") != 3)
+        {
+            System.out.println("Binary snapshot is wrong: code 1");
+            return;
+        }
+
+        // A loaded school keeps its student numbers taken
+        try
+        {
+            loaded.register(new Student(new Date(1, 1, 2000), new Name("copy", "cat"), "A88844411"));
+            System.out.println("Binary snapshot is wrong: code 2");
+            return;
+        }
+        catch(final IllegalPersonException e)
+        {
+        }
+
+        // A school built on a roster that already holds people indexes them all
+        if(new School(new RosterSnapshot(school.snapshot(), 9)).findByLastNamePrefix("ōta").size() != 1)
+        {
+            System.out.println("Binary snapshot is wrong: code 3");
+            return;
+        }
+
+        Files.write(file, new byte[]{1, 2, 3, 4});
+        try
+        {
+            School.loadSnapshot(file);
+            System.out.println("Binary snapshot is wrong: code 4");
+            return;
+        }
+        catch(final IOException e)
+        {
+        }
+
+        // Truncated files, a student index row outside the roster, and negative counts are corrupt
+        school.saveSnapshot(file);
+        bytes = Files.readAllBytes(file);
+        for(int length : new int[]{ 64, bytes.length / 2, bytes.length - 1 })
+        {
+            Files.write(broken, Arrays.copyOf(bytes, length));
+            if(!rejectsSnapshot(broken))
+            {
+                System.out.println("Binary snapshot is wrong: code 5 " + length);
+                return;
+            }
+        }
+
+        for(int row : new int[]{ school.snapshot().size(), -1 })
+        {
+            patched = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            patched.putInt(bytes.length - Integer.BYTES, row); // the row of the last index entry
+            Files.write(broken, patched.array());
+            if(!rejectsSnapshot(broken))
+            {
+                System.out.println("Binary snapshot is wrong: code 6 " + row);
+                return;
+            }
+        }
+
+        // An index entry whose number is not its row's, or that repeats the entry before it, is corrupt
+        for(boolean sameRow : new boolean[]{ false, true })
+        {
+            final int last;
+            last = bytes.length - Long.BYTES - Integer.BYTES; // the last index entry, after the one before it
+
+            patched = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            patched.putLong(last, patched.getLong(last - Long.BYTES - Integer.BYTES));
+            if(sameRow)
+            {
+                patched.putInt(last + Long.BYTES, patched.getInt(last - Integer.BYTES));
+            }
+            Files.write(broken, patched.array());
+            if(!rejectsSnapshot(broken))
+            {
+                System.out.println("Binary snapshot is wrong: code 9 " + sameRow);
+                return;
+            }
+        }
+
+        for(int offset : new int[]{ 8, 12, 16, 20 })
+        {
+            patched = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            patched.putInt(offset, -2);
+            Files.write(broken, patched.array());
+            if(!rejectsSnapshot(broken))
+            {
+                System.out.println("Binary snapshot is wrong: code 7 " + offset);
+                return;
+            }
+        }
+
+        // Without a student number index, students are found by scanning the records
+        RosterFile.write(school.snapshot(), file, false);
+        loaded = School.loadSnapshot(file);
+        if(!loaded.findStudent("A12345678").toString().equals(school.findStudent("A12345678").toString()) ||
+           !prettyNames(loaded.findByFirstNamePrefix("")).equals(prettyNames(school.findByFirstNamePrefix(""))))
+        {
+            System.out.println("Binary snapshot is wrong: code 8");
+            return;
+        }
+
+        // Two students with one number are rejected whether they come from a snapshot or a filled roster
+        twins = new ListRoster();
+        twins.add(new Student(new Date(1, 1, 2000), new Name("one", "twin"), "A55500011"));
+        twins.add(new Student(new Date(1, 1, 2000), new Name("two", "twin"), "A55500011"));
+        for(boolean indexed : new boolean[]{ true, false })
+        {
+            RosterFile.write(twins, file, indexed);
+            if(!rejectsSnapshot(file))
+            {
+                System.out.println("Binary snapshot is wrong: code 10 " + indexed);
+                return;
+            }
+        }
+        try
+        {
+            new School(twins);
+            System.out.println("Binary snapshot is wrong: code 11");
+            return;
+        }
+        catch(final IllegalPersonException e)
+        {
+        }
+        Files.delete(file);
+        Files.delete(broken);
+
+        System.out.println("Binary snapshot looks good");
+    }
+
+    public static boolean rejectsSnapshot(final Path file)
+    {
+        try
+        {
+            School.loadSnapshot(file);
+            return false;
+        }
+        catch(final IOException e)
+        {
+            return e.getMessage().startsWith("corrupt roster snapshot");
+        }
+        catch(final RuntimeException e)
+        {
+            return false;
+        }
+    }
+
+    public static void testBackgroundSaver()
+            throws IOException
+    {
+        CountDownLatch                release;
+        AtomicInteger                 runs;
+        List<Integer>                 saved;
+        BackgroundSaver<Integer>      saver;
+        CompletableFuture<Void>       first;
+        CompletableFuture<Void>       second;
+        CompletableFuture<Void>       third;
+        School                        school;
+        Path                          file;
+        List<CompletableFuture<Void>> saves;
+
+        release = new CountDownLatch(1);
+        runs    = new AtomicInteger();
+        saved   = Collections.synchronizedList(new ArrayList<>());
+        saver   = new BackgroundSaver<>(work->
+                                        {
+                                            try
+                                            {
+                                                release.await();
+                                            }
+                                            catch(final InterruptedException e)
+                                            {
+                                                throw new IOException(e);
+                                            }
+                                            saved.add(work);
+                                            if(runs.incrementAndGet() == 2)
+                                            {
+                                                throw new IOException("disk full");
+                                            }
+                                        });
+
+        // Requests made while a save runs share the one save queued behind it, which saves the latest work
+        first  = saver.request(1);
+        second = saver.request(2);
+        third  = saver.request(3);
+        release.countDown();
+
+        try
+        {
+            first.get();
+            second.get();
+            System.out.println("Background saver is wrong: code 1");
+            return;
+        }
+        catch(final ExecutionException e)
+        {
+            if(!(e.getCause() instanceof IOException) || second != third || !saved.equals(List.of(1, 3)))
+            {
+                System.out.println("Background saver is wrong: code 2");
+                return;
+            }
+        }
+        catch(final InterruptedException e)
+        {
+            throw new IOException(e);
+        }
+
+        // A failed save does not stop later ones
+        if(saver.request(4).handle((ignored, failure)->failure).join() != null || runs.get() != 3 || saver.isBusy())
+        {
+            System.out.println("Background saver is wrong: code 3");
+            return;
+        }
+
+        school = buildSchool(new ChunkedRoster());
+        school.saveDetailsAsync().join();
+        if(!Files.readString(Path.of("people.txt")).equals(details(school.snapshot())))
+        {
+            System.out.println("Background saver is wrong: code 4");
+            return;
+        }
+
+        // Registering on, and recording deaths in, rosters that are not safe for concurrent use while saves of them are
+        // in flight; a death recorded through a snapshot still reaches the roster
+        for(Roster roster : List.of(new ListRoster(), new ColumnarRoster(), new OffHeapRoster()))
+        {
+            file   = Files.createTempFile("details", ".txt");
+            school = new School(roster, file);
+            saves  = new ArrayList<>();
+            for(int i = 0; i < 20_000; i++)
+            {
+                school.register(new Person(Date.ofEpochDay(i - 10_000), new Name("zoë" + i, "Ōta")));
+                if(i % 250 == 0)
+                {
+                    saves.add(school.saveDetailsAsync());
+                    school.snapshot().get(i / 2).die(Date.ofEpochDay(i));
+                }
+            }
+            saves.add(school.saveDetailsAsync());
+            try
+            {
+                CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).join();
+            }
+            catch(final CompletionException e)
+            {
+                System.out.println("Background saver is wrong: code 5 " + roster.getClass().getName() + " " +
+                                   e.getCause());
+                return;
+            }
+            if(!Files.readString(file).equals(details(school.snapshot())) || roster.get(5_000).isAlive())
+            {
+                System.out.println("Background saver is wrong: code 6 " + roster.getClass().getName());
+                return;
+            }
+            Files.delete(file);
+        }
+
+        System.out.println("Background saver looks good");
+    }
+
+    public static void testCompressedDetails()
+            throws IOException
+    {
+        School school;
+        Path   file;
+        String lines;
+
+        school = buildSchool(new ChunkedRoster());
+        file   = Files.createTempFile("details", ".txt.gz");
+
+        for(int i = 0; i < 20_000; i++)
+        {
+            school.register(new Person(Date.ofEpochDay(i - 10_000), new Name("zoë" + i, "Ōta学")));
+        }
+        school.saveCompressedDetails(file);
+
+        try(Stream<String> stream = CompressedDetails.lines(file))
+        {
+            lines = stream.map(line->line + System.lineSeparator()).collect(Collectors.joining());
+        }
+        if(!lines.equals(details(school.snapshot())) || Files.size(file) * 4 > lines.length())
+        {
+            System.out.println("Compressed details are wrong: code 1");
+            return;
+        }
+        Files.delete(file);
+
+        System.out.println("Compressed details look good");
+    }
+
+    public static String roster(final School school)
+    {
+        ByteArrayOutputStream out;
+        PrintStream           originalOut;
+
+        out         = new ByteArrayOutputStream();
+        originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        school.printRoster();
+        System.setOut(originalOut);
+
+        return out.toString();
+    }
+
+    public static void testRoster(final String label, final Roster roster)
+    {
+        School expected;
+        School actual;
+
+        expected = buildSchool();
+        actual   = buildSchool(roster);
+
+        if(!roster(actual).equals(roster(expected)) ||
+           actual.countAliveBornBefore(new Date(1, 1, 1970)) != 2 ||
+           actual.countAliveBornBefore(new Date(1, 1, 1880)) != 0 ||
+           !actual.findStudent("A88844411").toString().equals(expected.findStudent("A88844411").toString()) ||
+           !prettyNames(actual.findByLastNamePrefix("w")).equals(prettyNames(expected.findByLastNamePrefix("w"))) ||
+           actual.countTeachersWithSpecialty("life") != 1)
+        {
+            System.out.println(label + " is wrong: code 1");
+            return;
+        }
+
+        System.out.println(label + " looks good");
+    }
+
+    public static void testRecordDeath(final String label, final Roster roster)
+    {
+        School school;
+        Person registered;
+        int    alive;
+        long   sequence;
+
+        school     = buildSchool(roster);
+        registered = new Person(new Date(2, 2, 1972), new Name("kept", "object"));
+        school.register(registered);
+        alive      = school.countAliveBornBefore(new Date(1, 1, 1980));
+        sequence   = Person.currentChangeSequence();
+
+        // A death recorded on a view, on the registered object, or on the roster itself is stored
+        school.findByLastNamePrefix("musk").get(0).die(new Date(1, 1, 2100));
+        registered.die(new Date(1, 1, 2101));
+        roster.recordDeath(0, new Date(1, 1, 2102).getEpochDay());
+
+        if(school.findByLastNamePrefix("musk").get(0).isAlive() ||
+           !school.findByLastNamePrefix("object").get(0).getDateOfDeath().equals(new Date(1, 1, 2101)) ||
+           !school.findStudent("A12345678").getDateOfDeath().equals(new Date(1, 1, 2102)) ||
+           school.countAliveBornBefore(new Date(1, 1, 1980)) != alive - 3 ||
+           school.findByLastNamePrefix("musk").get(0).getChangeSequence() <= sequence ||
+           school.snapshot().get(1).getChangeSequence() > sequence)
+        {
+            System.out.println(label + " deaths are wrong: code 1");
+            return;
+        }
+
+        // ...and so is one recorded through a snapshot, even where the snapshot is a copy
+        school.snapshot().get(6).die(new Date(1, 1, 2103));
+        if(roster.get(6).isAlive() || school.countAliveBornBefore(new Date(1, 1, 1980)) != alive - 4)
+        {
+            System.out.println(label + " deaths are wrong: code 2");
+            return;
+        }
+
+        System.out.println(label + " deaths look good");
+    }
+
+    public static void main(final String[] args)
+            throws IOException
+    {
+        testDateArithmetic();
+        testWeekday();
+        testDateCache();
+        testDateFormat();
+        testNameDictionary();
+        testNameIndex();
+        testDuplicateDetection();
+        testStudentNumberIndex();
+        testStudentNumberEncoding();
+        testSpecialtyIndex();
+        testRoster("Columnar roster", new ColumnarRoster());
+        testRoster("Off-heap roster", new OffHeapRoster());
+        testRoster("Chunked roster", new ChunkedRoster());
+        testRecordDeath("Columnar roster", new ColumnarRoster());
+        testRecordDeath("Off-heap roster", new OffHeapRoster());
+        testRecordDeath("Chunked roster", new ChunkedRoster());
+        testRegisterAll();
+        testSnapshot();
+        testPrintRoster();
+        testAgesReport();
+        testAgesInYear();
+        testSerializer();
+        testIncrementalExport();
+        testBinarySnapshot();
+        testBackgroundSaver();
+        testCompressedDetails();
+    }
+}